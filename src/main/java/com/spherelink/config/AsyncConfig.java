@@ -0,0 +1,57 @@
+package com.spherelink.config;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+@EnableScheduling
+public class AsyncConfig {
+
+    // Bounded pool for writing uploaded assets; when saturated the submitting request thread
+    // runs the write itself, so load degrades to the old sequential behaviour instead of failing
+    @Bean(name = "assetWriteExecutor")
+    public ThreadPoolTaskExecutor assetWriteExecutor(UploadConfig uploadConfig) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(uploadConfig.getWriteThreads());
+        executor.setMaxPoolSize(uploadConfig.getWriteThreads());
+        executor.setQueueCapacity(uploadConfig.getWriteQueueCapacity());
+        executor.setThreadNamePrefix("asset-write-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        return executor;
+    }
+
+    // Decoding and resizing is memory heavy, so this pool stays small and rejects work when
+    // full rather than running it on a request thread; rejected jobs are retried on demand
+    @Bean(name = "imageProcessingExecutor")
+    public ThreadPoolTaskExecutor imageProcessingExecutor(ImagingConfig imagingConfig) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(imagingConfig.getThreads());
+        executor.setMaxPoolSize(imagingConfig.getThreads());
+        executor.setQueueCapacity(imagingConfig.getQueueCapacity());
+        executor.setThreadNamePrefix("image-proc-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        return executor;
+    }
+
+    // Uploads multipart parts to the object store; only exists with app.storage.backend=s3. When
+    // the queue is full the thread submitting parts uploads one itself, which also stops it from
+    // queueing more until it is done
+    @Bean(name = "storageUploadExecutor")
+    @ConditionalOnProperty(name = "app.storage.backend", havingValue = "s3")
+    public ThreadPoolTaskExecutor storageUploadExecutor(StorageConfig storageConfig) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(storageConfig.getS3().getUploadThreads());
+        executor.setMaxPoolSize(storageConfig.getS3().getUploadThreads());
+        executor.setQueueCapacity(storageConfig.getS3().getUploadQueueCapacity());
+        executor.setThreadNamePrefix("storage-upload-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        return executor;
+    }
+}
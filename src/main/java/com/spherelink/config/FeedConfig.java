@@ -0,0 +1,167 @@
+package com.spherelink.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+@Component
+@ConfigurationProperties(prefix = "app.feed")
+public class FeedConfig {
+    // Serve page/size offset paging (with totals) to clients that do not ask for a cursor; when off, every request is keyset-paged
+    private boolean offsetPaging = true;
+
+    // Radius of the nearby filter when the request does not give one
+    private double defaultRadiusKm = 10.0;
+
+    // Largest radius a request may ask for; wider searches degrade towards a scan of every public view
+    private double maxRadiusKm = 200.0;
+
+    private final SpatialIndex spatialIndex = new SpatialIndex();
+
+    private final MapClusters mapClusters = new MapClusters();
+
+    private final Cache cache = new Cache();
+
+    public boolean isOffsetPaging() {
+        return offsetPaging;
+    }
+
+    public void setOffsetPaging(boolean offsetPaging) {
+        this.offsetPaging = offsetPaging;
+    }
+
+    public double getDefaultRadiusKm() {
+        return defaultRadiusKm;
+    }
+
+    public void setDefaultRadiusKm(double defaultRadiusKm) {
+        this.defaultRadiusKm = defaultRadiusKm;
+    }
+
+    public double getMaxRadiusKm() {
+        return maxRadiusKm;
+    }
+
+    public void setMaxRadiusKm(double maxRadiusKm) {
+        this.maxRadiusKm = maxRadiusKm;
+    }
+
+    public SpatialIndex getSpatialIndex() {
+        return spatialIndex;
+    }
+
+    public MapClusters getMapClusters() {
+        return mapClusters;
+    }
+
+    public Cache getCache() {
+        return cache;
+    }
+
+    public static class SpatialIndex {
+        // Answer nearby requests without a search term from an in-memory grid of public views
+        private boolean enabled = false;
+
+        // Grid cell edge in degrees; a radius query visits the cells its bounding box touches
+        private double cellDegrees = 0.25;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public double getCellDegrees() {
+            return cellDegrees;
+        }
+
+        public void setCellDegrees(double cellDegrees) {
+            this.cellDegrees = cellDegrees;
+        }
+    }
+
+    public static class MapClusters {
+        // Deepest zoom level that still clusters; above it every view is its own pin
+        private int maxZoom = 16;
+
+        // Cluster radius in pixels of a 512px tile
+        private int radiusPixels = 60;
+
+        public int getMaxZoom() {
+            return maxZoom;
+        }
+
+        public void setMaxZoom(int maxZoom) {
+            this.maxZoom = maxZoom;
+        }
+
+        public int getRadiusPixels() {
+            return radiusPixels;
+        }
+
+        public void setRadiusPixels(int radiusPixels) {
+            this.radiusPixels = radiusPixels;
+        }
+    }
+
+    public static class Cache {
+        // Cache feed pages in memory; writes evict only the entries they can affect
+        private boolean enabled = true;
+
+        // Approximate heap the cached pages may take, estimated from their strings
+        private DataSize maxSize = DataSize.ofMegabytes(32);
+
+        // Upper bound on staleness for changes that bypass ViewService, e.g. shard migration path rewrites
+        private Duration ttl = Duration.ofMinutes(5);
+
+        // Decimal places nearby coordinates are rounded to, so nearby users share entries (3 is about 100m)
+        private int coordinateScale = 3;
+
+        // How long a request waits for an identical in-flight feed query before running its own
+        private Duration coalesceTimeout = Duration.ofSeconds(5);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public DataSize getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(DataSize maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        public Duration getTtl() {
+            return ttl;
+        }
+
+        public void setTtl(Duration ttl) {
+            this.ttl = ttl;
+        }
+
+        public int getCoordinateScale() {
+            return coordinateScale;
+        }
+
+        public void setCoordinateScale(int coordinateScale) {
+            this.coordinateScale = coordinateScale;
+        }
+
+        public Duration getCoalesceTimeout() {
+            return coalesceTimeout;
+        }
+
+        public void setCoalesceTimeout(Duration coalesceTimeout) {
+            this.coalesceTimeout = coalesceTimeout;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.spherelink.config;
+
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "app.imaging")
+public class ImagingConfig {
+    // Edge length in pixels of each panorama pyramid tile
+    private int tileSize = 512;
+
+    // JPEG quality (0-1) used for generated tiles
+    private float tileQuality = 0.85f;
+
+    // Widths (px) of the small, medium and large renditions made for thumbnails, banners and profile pictures
+    private List<Integer> renditionWidths = List.of(320, 640, 1280);
+
+    // Quality (0-1) used for JPEG renditions
+    private float renditionQuality = 0.8f;
+
+    // Worker threads decoding and resizing images; each holds a full decoded panorama in memory
+    private int threads = 2;
+
+    // Jobs waiting for a worker before new ones are rejected (and retried lazily on request)
+    private int queueCapacity = 64;
+
+    public int getTileSize() {
+        return tileSize;
+    }
+
+    public void setTileSize(int tileSize) {
+        this.tileSize = tileSize;
+    }
+
+    public float getTileQuality() {
+        return tileQuality;
+    }
+
+    public void setTileQuality(float tileQuality) {
+        this.tileQuality = tileQuality;
+    }
+
+    public List<Integer> getRenditionWidths() {
+        return renditionWidths;
+    }
+
+    public void setRenditionWidths(List<Integer> renditionWidths) {
+        this.renditionWidths = renditionWidths;
+    }
+
+    public float getRenditionQuality() {
+        return renditionQuality;
+    }
+
+    public void setRenditionQuality(float renditionQuality) {
+        this.renditionQuality = renditionQuality;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+}
@@ -0,0 +1,108 @@
+package com.spherelink.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "app.ratings")
+public class RatingConfig {
+
+    // Bayesian rating score: every view starts with priorWeight virtual ratings of priorMean stars,
+    // so a handful of 5-star ratings cannot outrank hundreds of slightly lower ones
+    private double priorMean = 3.5;
+
+    private double priorWeight = 10;
+
+    private final WriteBehind writeBehind = new WriteBehind();
+
+    public double getPriorMean() {
+        return priorMean;
+    }
+
+    public void setPriorMean(double priorMean) {
+        this.priorMean = priorMean;
+    }
+
+    public double getPriorWeight() {
+        return priorWeight;
+    }
+
+    public void setPriorWeight(double priorWeight) {
+        this.priorWeight = priorWeight;
+    }
+
+    public WriteBehind getWriteBehind() {
+        return writeBehind;
+    }
+
+    public static class WriteBehind {
+        // Queue ratings in memory and write them in batches instead of one transaction per rating
+        private boolean enabled = false;
+
+        // "flush": answer once the rating's batch is committed; "enqueue": answer once it is queued,
+        // losing queued ratings if the process dies before the next flush
+        private String ack = "flush";
+
+        // Ratings held in memory at most; when full, ratings are written synchronously
+        private int queueCapacity = 10_000;
+
+        // Rows per JDBC batch, each batch in its own transaction
+        private int batchSize = 500;
+
+        // How often the queue is drained
+        private Duration flushInterval = Duration.ofMillis(200);
+
+        // With ack=flush, how long a caller waits for its batch before writing the rating itself
+        private Duration ackTimeout = Duration.ofSeconds(5);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getAck() {
+            return ack;
+        }
+
+        public void setAck(String ack) {
+            this.ack = ack;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public Duration getFlushInterval() {
+            return flushInterval;
+        }
+
+        public void setFlushInterval(Duration flushInterval) {
+            this.flushInterval = flushInterval;
+        }
+
+        public Duration getAckTimeout() {
+            return ackTimeout;
+        }
+
+        public void setAckTimeout(Duration ackTimeout) {
+            this.ackTimeout = ackTimeout;
+        }
+    }
+}
@@ -24,6 +24,7 @@ public class SecurityConfig {
             .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
             .authorizeHttpRequests(auth -> auth
                 .requestMatchers("/spherelink/views").authenticated()
+                .requestMatchers("/spherelink/views/stream").authenticated()
                 .requestMatchers("/spherelink/users/profile").authenticated()
                 .anyRequest().permitAll()
             )
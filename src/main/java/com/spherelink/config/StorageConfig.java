@@ -0,0 +1,159 @@
+package com.spherelink.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+@Component
+@ConfigurationProperties(prefix = "app.storage")
+public class StorageConfig {
+    // "local" (Uploads/ on this node) or "s3" (any S3-compatible object store, e.g. MinIO)
+    private String backend = "local";
+
+    private final S3 s3 = new S3();
+
+    public String getBackend() {
+        return backend;
+    }
+
+    public void setBackend(String backend) {
+        this.backend = backend;
+    }
+
+    public S3 getS3() {
+        return s3;
+    }
+
+    public static class S3 {
+        private String bucket;
+
+        private String region = "us-east-1";
+
+        // Set for MinIO or other S3-compatible services, e.g. http://localhost:9000
+        private String endpoint;
+
+        // MinIO and most self-hosted stores need path-style (endpoint/bucket/key) addressing
+        private boolean pathStyleAccess = false;
+
+        // Static credentials; when empty the default AWS provider chain is used
+        private String accessKey;
+
+        private String secretKey;
+
+        // Public base URL (bucket website or CDN); when empty clients get presigned URLs
+        private String publicUrl;
+
+        // Lifetime of presigned GET URLs
+        private Duration presignTtl = Duration.ofHours(1);
+
+        // Files at least this large are uploaded as parallel multipart uploads
+        private DataSize multipartThreshold = DataSize.ofMegabytes(32);
+
+        // Size of each multipart part (S3 requires at least 5MB)
+        private DataSize partSize = DataSize.ofMegabytes(16);
+
+        // Parts uploaded concurrently across all uploads
+        private int uploadThreads = 8;
+
+        // Parts waiting for an upload thread, across all uploads
+        private int uploadQueueCapacity = 32;
+
+        public String getBucket() {
+            return bucket;
+        }
+
+        public void setBucket(String bucket) {
+            this.bucket = bucket;
+        }
+
+        public String getRegion() {
+            return region;
+        }
+
+        public void setRegion(String region) {
+            this.region = region;
+        }
+
+        public String getEndpoint() {
+            return endpoint;
+        }
+
+        public void setEndpoint(String endpoint) {
+            this.endpoint = endpoint;
+        }
+
+        public boolean isPathStyleAccess() {
+            return pathStyleAccess;
+        }
+
+        public void setPathStyleAccess(boolean pathStyleAccess) {
+            this.pathStyleAccess = pathStyleAccess;
+        }
+
+        public String getAccessKey() {
+            return accessKey;
+        }
+
+        public void setAccessKey(String accessKey) {
+            this.accessKey = accessKey;
+        }
+
+        public String getSecretKey() {
+            return secretKey;
+        }
+
+        public void setSecretKey(String secretKey) {
+            this.secretKey = secretKey;
+        }
+
+        public String getPublicUrl() {
+            return publicUrl;
+        }
+
+        public void setPublicUrl(String publicUrl) {
+            this.publicUrl = publicUrl;
+        }
+
+        public Duration getPresignTtl() {
+            return presignTtl;
+        }
+
+        public void setPresignTtl(Duration presignTtl) {
+            this.presignTtl = presignTtl;
+        }
+
+        public DataSize getMultipartThreshold() {
+            return multipartThreshold;
+        }
+
+        public void setMultipartThreshold(DataSize multipartThreshold) {
+            this.multipartThreshold = multipartThreshold;
+        }
+
+        public DataSize getPartSize() {
+            return partSize;
+        }
+
+        public void setPartSize(DataSize partSize) {
+            this.partSize = partSize;
+        }
+
+        public int getUploadThreads() {
+            return uploadThreads;
+        }
+
+        public void setUploadThreads(int uploadThreads) {
+            this.uploadThreads = uploadThreads;
+        }
+
+        public int getUploadQueueCapacity() {
+            return uploadQueueCapacity;
+        }
+
+        public void setUploadQueueCapacity(int uploadQueueCapacity) {
+            this.uploadQueueCapacity = uploadQueueCapacity;
+        }
+    }
+}
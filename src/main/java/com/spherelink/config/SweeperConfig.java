@@ -0,0 +1,54 @@
+package com.spherelink.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "app.sweeper")
+public class SweeperConfig {
+    // Turns the orphaned-upload sweeper on or off
+    private boolean enabled = true;
+
+    // Files examined per run; each run issues one lookup query for the whole batch
+    private int batchSize = 500;
+
+    // Files younger than this are never deleted, covering uploads whose DB row is not committed yet
+    private Duration gracePeriod = Duration.ofHours(24);
+
+    // Log what would be deleted without deleting anything; deletion is permanent, so it is opt-in
+    private boolean dryRun = true;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public Duration getGracePeriod() {
+        return gracePeriod;
+    }
+
+    public void setGracePeriod(Duration gracePeriod) {
+        this.gracePeriod = gracePeriod;
+    }
+
+    public boolean isDryRun() {
+        return dryRun;
+    }
+
+    public void setDryRun(boolean dryRun) {
+        this.dryRun = dryRun;
+    }
+}
@@ -0,0 +1,120 @@
+package com.spherelink.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "app.upload")
+public class UploadConfig {
+    // Size of each direct buffer used when streaming uploads to disk
+    private int streamBufferSize = 64 * 1024;
+
+    // Maximum number of direct buffers alive at once (bounds off-heap memory)
+    private int streamBufferCount = 32;
+
+    // Where resumable uploads are assembled; kept outside Uploads/ so partial files are never served
+    private String partialDir = "Uploads_partial";
+
+    // Resumable sessions no view has claimed are deleted, with their files, once idle this long
+    private Duration sessionTtl = Duration.ofHours(24);
+
+    // Store uploads by SHA-256 of their content so identical files share one copy on disk
+    private boolean contentAddressed = false;
+
+    // Worker threads used to persist the assets of one view upload in parallel
+    private int writeThreads = 8;
+
+    // Pending asset writes queued before submitters start running writes themselves
+    private int writeQueueCapacity = 256;
+
+    // Store new files under two levels of hex subdirectories instead of one flat directory
+    private boolean shardedLayout = true;
+
+    // Move existing flat files into the sharded layout in the background
+    private boolean shardMigrationEnabled = false;
+
+    // Files moved (and path columns rewritten) per migration run
+    private int shardMigrationBatchSize = 200;
+
+    public int getStreamBufferSize() {
+        return streamBufferSize;
+    }
+
+    public void setStreamBufferSize(int streamBufferSize) {
+        this.streamBufferSize = streamBufferSize;
+    }
+
+    public int getStreamBufferCount() {
+        return streamBufferCount;
+    }
+
+    public void setStreamBufferCount(int streamBufferCount) {
+        this.streamBufferCount = streamBufferCount;
+    }
+
+    public String getPartialDir() {
+        return partialDir;
+    }
+
+    public void setPartialDir(String partialDir) {
+        this.partialDir = partialDir;
+    }
+
+    public Duration getSessionTtl() {
+        return sessionTtl;
+    }
+
+    public void setSessionTtl(Duration sessionTtl) {
+        this.sessionTtl = sessionTtl;
+    }
+
+    public boolean isContentAddressed() {
+        return contentAddressed;
+    }
+
+    public void setContentAddressed(boolean contentAddressed) {
+        this.contentAddressed = contentAddressed;
+    }
+
+    public int getWriteThreads() {
+        return writeThreads;
+    }
+
+    public void setWriteThreads(int writeThreads) {
+        this.writeThreads = writeThreads;
+    }
+
+    public int getWriteQueueCapacity() {
+        return writeQueueCapacity;
+    }
+
+    public void setWriteQueueCapacity(int writeQueueCapacity) {
+        this.writeQueueCapacity = writeQueueCapacity;
+    }
+
+    public boolean isShardedLayout() {
+        return shardedLayout;
+    }
+
+    public void setShardedLayout(boolean shardedLayout) {
+        this.shardedLayout = shardedLayout;
+    }
+
+    public boolean isShardMigrationEnabled() {
+        return shardMigrationEnabled;
+    }
+
+    public void setShardMigrationEnabled(boolean shardMigrationEnabled) {
+        this.shardMigrationEnabled = shardMigrationEnabled;
+    }
+
+    public int getShardMigrationBatchSize() {
+        return shardMigrationBatchSize;
+    }
+
+    public void setShardMigrationBatchSize(int shardMigrationBatchSize) {
+        this.shardMigrationBatchSize = shardMigrationBatchSize;
+    }
+}
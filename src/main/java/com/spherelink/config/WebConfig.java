@@ -1,13 +1,33 @@
 package com.spherelink.config;
 
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.web.multipart.MultipartResolver;
+import org.springframework.web.multipart.support.StandardServletMultipartResolver;
+import org.springframework.web.servlet.DispatcherServlet;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
-import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+import jakarta.servlet.http.HttpServletRequest;
+
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
 
+    // Reads its multipart body itself, as a stream, so it must reach the handler unparsed
+    private static final String STREAMING_UPLOAD_PATH = "/spherelink/views/stream";
+
+    // Multipart requests are parsed up front as usual, except the streaming upload
+    @Bean(name = DispatcherServlet.MULTIPART_RESOLVER_BEAN_NAME)
+    public MultipartResolver multipartResolver() {
+        return new StandardServletMultipartResolver() {
+            @Override
+            public boolean isMultipart(HttpServletRequest request) {
+                String path = request.getRequestURI().substring(request.getContextPath().length());
+                return !STREAMING_UPLOAD_PATH.equals(path) && super.isMultipart(request);
+            }
+        };
+    }
+
     @Override
     public void addCorsMappings(CorsRegistry registry) {
         registry.addMapping("/") 
@@ -16,10 +36,6 @@ public class WebConfig implements WebMvcConfigurer {
                 .allowedHeaders("*")
                 .allowCredentials(true);
     }
-    
-    @Override
-    public void addResourceHandlers(ResourceHandlerRegistry registry) {
-        registry.addResourceHandler("/Uploads/**")
-                .addResourceLocations("file:Uploads/"); // Relative path
-    }
-} 
\ No newline at end of file
+
+    // /Uploads/** is served by AssetController (ranges, ETags, sendfile) rather than a resource handler
+} 
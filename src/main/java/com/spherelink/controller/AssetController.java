@@ -0,0 +1,282 @@
+package com.spherelink.controller;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.util.UriUtils;
+
+import com.spherelink.model.PanoramaImage;
+import com.spherelink.repository.PanoramaImageRepository;
+import com.spherelink.service.FileService;
+import com.spherelink.service.RenditionService;
+import com.spherelink.service.StorageBackend;
+import com.spherelink.service.TilePyramidService;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Serves stored uploads. Supports single byte ranges (so viewers can load panoramas
+ * progressively), strong ETags with If-None-Match, and hands the body to Tomcat's sendfile when
+ * the connector offers it, falling back to FileChannel.transferTo otherwise. Images with
+ * renditions are swapped for the best one according to the Width/DPR/Save-Data client hints (or
+ * ?w=). Also exposes the tile pyramid manifests built by TilePyramidService.
+ */
+@RestController
+public class AssetController {
+
+    private static final Logger logger = LoggerFactory.getLogger(AssetController.class);
+
+    // Files named by FileService (UUID) or the content-addressed store (SHA-256), and tiles derived
+    // from them (whose directory carries that name), never change content
+    private static final Pattern IMMUTABLE_NAME = Pattern.compile(
+            "[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}|[0-9a-f]{64}");
+    private static final String IMMUTABLE_CACHE_CONTROL = "public, max-age=31536000, immutable";
+    private static final String REVALIDATE_CACHE_CONTROL = "public, no-cache";
+
+    // Renditions are negotiated from these; Sec-CH-* are the current names, Width/DPR the legacy ones
+    private static final String CLIENT_HINTS_VARY = "Sec-CH-Width, Width, Sec-CH-DPR, DPR, Save-Data";
+    private static final String CLIENT_HINTS_ACCEPT = "Sec-CH-Width, Sec-CH-DPR, Width, DPR";
+    private static final String DERIVED_PREFIX_TILES = "Uploads/tiles/";
+    private static final String DERIVED_PREFIX_RENDITIONS = "Uploads/renditions/";
+
+    // Tomcat's sendfile contract; see org.apache.coyote.Constants
+    private static final String SENDFILE_SUPPORTED_ATTR = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME_ATTR = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START_ATTR = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END_ATTR = "org.apache.tomcat.sendfile.end";
+    // Below this a plain copy is cheaper than handing the file to the poller (Tomcat's own default)
+    private static final long SENDFILE_MIN_SIZE = 48 * 1024;
+
+    private final FileService fileService;
+    private final TilePyramidService tilePyramidService;
+    private final RenditionService renditionService;
+    private final PanoramaImageRepository panoramaImageRepository;
+    private final StorageBackend storageBackend;
+
+    public AssetController(FileService fileService, TilePyramidService tilePyramidService,
+            RenditionService renditionService, PanoramaImageRepository panoramaImageRepository,
+            StorageBackend storageBackend) {
+        this.fileService = fileService;
+        this.tilePyramidService = tilePyramidService;
+        this.renditionService = renditionService;
+        this.panoramaImageRepository = panoramaImageRepository;
+        this.storageBackend = storageBackend;
+    }
+
+    @GetMapping("/Uploads/**")
+    public void serveAsset(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String lookupPath = (String) request.getAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE);
+        String relativePath = UriUtils.decode(lookupPath.startsWith("/") ? lookupPath.substring(1) : lookupPath,
+                StandardCharsets.UTF_8);
+        Path file = fileService.resolveLocalFile(relativePath);
+        if (file == null) {
+            if (!storageBackend.isLocal()) {
+                // Written on another node (or evicted locally); the object store has the copy
+                response.sendRedirect(storageBackend.publicUrl(relativePath));
+                return;
+            }
+            response.sendError(HttpStatus.NOT_FOUND.value());
+            return;
+        }
+
+        boolean immutable = IMMUTABLE_NAME.matcher(relativePath).find();
+        if (isNegotiable(relativePath)) {
+            // Varies from the first response, so no cache keeps an original for clients a rendition suits
+            response.setHeader(HttpHeaders.VARY, CLIENT_HINTS_VARY);
+            response.setHeader("Accept-CH", CLIENT_HINTS_ACCEPT);
+            if (renditionService.hasRenditions(relativePath)) {
+                Path rendition = renditionService.select(relativePath, targetWidth(request),
+                        "on".equalsIgnoreCase(request.getHeader("Save-Data")));
+                if (rendition != null) {
+                    file = rendition;
+                }
+            } else {
+                // Renditions may still be on their way; revalidating picks them up once they land
+                immutable = false;
+            }
+        }
+        serveFile(file, immutable, request, response);
+    }
+
+    /**
+     * Returns the tile pyramid manifest of a panorama, or 202 while the tiles are still being
+     * built. Tiles themselves are fetched from the manifest's tileUrlTemplate under /Uploads.
+     */
+    @GetMapping("/spherelink/panoramas/{imageId}/manifest")
+    public void getTileManifest(@PathVariable UUID imageId, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        Optional<PanoramaImage> pano = panoramaImageRepository.findById(imageId);
+        if (pano.isEmpty()) {
+            response.sendError(HttpStatus.NOT_FOUND.value(), "Panorama not found with ID: " + imageId);
+            return;
+        }
+        Path manifest = tilePyramidService.findManifest(pano.get().getImagePath());
+        if (manifest == null) {
+            // Also covers panoramas uploaded before tiling existed, or deferred while the pool was full
+            tilePyramidService.schedule(pano.get().getImagePath());
+            response.setStatus(HttpStatus.ACCEPTED.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, "2");
+            response.setHeader(HttpHeaders.CACHE_CONTROL, "no-store");
+            return;
+        }
+        serveFile(manifest, false, request, response);
+    }
+
+    private void serveFile(Path file, boolean immutable, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        long length = attributes.size();
+        String etag = strongEtag(attributes);
+        String filename = file.getFileName().toString();
+
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.CACHE_CONTROL, immutable ? IMMUTABLE_CACHE_CONTROL : REVALIDATE_CACHE_CONTROL);
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, attributes.lastModifiedTime().toMillis());
+
+        if (matchesAny(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            response.setStatus(HttpStatus.NOT_MODIFIED.value());
+            return;
+        }
+
+        response.setContentType(MediaTypeFactory.getMediaType(filename)
+                .orElse(MediaType.APPLICATION_OCTET_STREAM).toString());
+
+        long start = 0;
+        long end = length - 1;
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        // A stale If-Range means the client's partial copy is outdated, so it gets the whole file
+        if (rangeHeader != null && (ifRange == null || ifRange.trim().equals(etag))) {
+            try {
+                List<HttpRange> ranges = HttpRange.parseRanges(rangeHeader);
+                // Multiple ranges would need multipart/byteranges; viewers only ask for one
+                if (ranges.size() == 1) {
+                    start = ranges.get(0).getRangeStart(length);
+                    end = ranges.get(0).getRangeEnd(length);
+                    response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+                }
+            } catch (IllegalArgumentException e) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                response.sendError(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                return;
+            }
+        }
+
+        long count = end - start + 1;
+        response.setContentLengthLong(count);
+        if ("HEAD".equals(request.getMethod()) || count <= 0) {
+            return;
+        }
+
+        if (count >= SENDFILE_MIN_SIZE && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED_ATTR))) {
+            request.setAttribute(SENDFILE_FILENAME_ATTR, file.toString());
+            request.setAttribute(SENDFILE_START_ATTR, start);
+            request.setAttribute(SENDFILE_END_ATTR, end + 1);
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = count;
+            while (remaining > 0) {
+                long sent = channel.transferTo(position, remaining, out);
+                if (sent <= 0) {
+                    break;
+                }
+                position += sent;
+                remaining -= sent;
+            }
+        } catch (IOException e) {
+            // Usually a viewer cancelling a range request mid-transfer
+            logger.debug("Transfer of {} aborted: {}", file, e.getMessage());
+        }
+    }
+
+    // Uploaded images, as opposed to the tiles and renditions derived from them
+    private boolean isNegotiable(String relativePath) {
+        return !relativePath.startsWith(DERIVED_PREFIX_TILES) && !relativePath.startsWith(DERIVED_PREFIX_RENDITIONS)
+                && MediaTypeFactory.getMediaType(relativePath)
+                        .map(type -> "image".equals(type.getType()))
+                        .orElse(false);
+    }
+
+    // Width in physical pixels: the Width hint already includes DPR, the ?w= fallback is in CSS pixels
+    private Integer targetWidth(HttpServletRequest request) {
+        Double width = parseHint(request.getHeader("Sec-CH-Width"), request.getHeader("Width"));
+        if (width != null) {
+            return (int) Math.ceil(width);
+        }
+        Double cssWidth = parseHint(request.getParameter("w"), null);
+        if (cssWidth == null) {
+            return null;
+        }
+        Double dpr = parseHint(request.getHeader("Sec-CH-DPR"), request.getHeader("DPR"));
+        return (int) Math.ceil(cssWidth * (dpr != null && dpr > 0 ? dpr : 1.0));
+    }
+
+    private Double parseHint(String value, String fallback) {
+        String hint = value != null ? value : fallback;
+        if (hint == null || hint.isBlank()) {
+            return null;
+        }
+        try {
+            double parsed = Double.parseDouble(hint.trim());
+            return parsed > 0 ? parsed : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    // Inode (file key), size and mtime change whenever the bytes at this path could have changed
+    private String strongEtag(BasicFileAttributes attributes) {
+        StringBuilder tag = new StringBuilder("\"")
+                .append(Long.toHexString(attributes.lastModifiedTime().toMillis()))
+                .append('-')
+                .append(Long.toHexString(attributes.size()));
+        Object fileKey = attributes.fileKey();
+        if (fileKey != null) {
+            tag.append('-').append(Integer.toHexString(fileKey.hashCode()));
+        }
+        return tag.append('"').toString();
+    }
+
+    // If-None-Match uses the weak comparison, so W/"x" matches "x"
+    private boolean matchesAny(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || tag.equals(etag) || tag.equals("W/" + etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
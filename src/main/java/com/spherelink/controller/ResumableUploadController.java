@@ -0,0 +1,203 @@
+package com.spherelink.controller;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.*;
+
+import com.spherelink.exception.ResourceNotFoundException;
+import com.spherelink.exception.ResumableUploadException;
+import com.spherelink.model.FileRecord;
+import com.spherelink.model.UploadSession;
+import com.spherelink.service.ResumableUploadService;
+import com.spherelink.service.UserService;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * tus-style resumable uploads. A client creates a session, PATCHes chunks at Upload-Offset,
+ * asks for the offset with HEAD after a dropped connection, and finalizes the upload into a
+ * FileRecord. The returned uploadId can then be passed as panorama[i][uploadId] or
+ * thumbnailUploadId in the view upload instead of the file part itself.
+ */
+@RestController
+@RequestMapping("/files/uploads")
+public class ResumableUploadController {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResumableUploadController.class);
+
+    private static final String TUS_VERSION = "1.0.0";
+    private static final String OFFSET_CONTENT_TYPE = "application/offset+octet-stream";
+
+    private final ResumableUploadService resumableUploadService;
+    private final UserService userService;
+
+    public ResumableUploadController(ResumableUploadService resumableUploadService, UserService userService) {
+        this.resumableUploadService = resumableUploadService;
+        this.userService = userService;
+    }
+
+    @RequestMapping(method = RequestMethod.OPTIONS)
+    public ResponseEntity<Void> options() {
+        return ResponseEntity.noContent()
+                .header("Tus-Resumable", TUS_VERSION)
+                .header("Tus-Version", TUS_VERSION)
+                .header("Tus-Extension", "creation,checksum")
+                .header("Tus-Checksum-Algorithm", "md5,sha1,sha256")
+                .build();
+    }
+
+    @PostMapping
+    public ResponseEntity<Map<String, Object>> createUpload(
+            @RequestHeader("Upload-Length") long uploadLength,
+            @RequestHeader(value = "Upload-Metadata", required = false) String uploadMetadata,
+            HttpServletRequest request) {
+        try {
+            UUID userId = currentUserId();
+            if (userId == null) {
+                return error(HttpStatus.UNAUTHORIZED.value(), "Authentication required");
+            }
+            Map<String, String> metadata = parseMetadata(uploadMetadata);
+            UploadSession session = resumableUploadService.createSession(userId, metadata.get("filename"),
+                    metadata.get("kind"), uploadLength);
+
+            String location = request.getRequestURL().append("/").append(session.getUploadId()).toString();
+            Map<String, Object> response = new HashMap<>();
+            response.put("status", HttpStatus.CREATED.value());
+            response.put("message", "Upload created");
+            response.put("uploadId", session.getUploadId());
+            return ResponseEntity.status(HttpStatus.CREATED)
+                    .header(HttpHeaders.LOCATION, location)
+                    .header("Tus-Resumable", TUS_VERSION)
+                    .header("Upload-Offset", "0")
+                    .body(response);
+        } catch (ResumableUploadException e) {
+            return error(e.getStatus(), e.getMessage());
+        } catch (IOException e) {
+            logger.error("Failed to create upload: {}", e.getMessage());
+            return error(HttpStatus.INTERNAL_SERVER_ERROR.value(), "Failed to create upload");
+        }
+    }
+
+    @RequestMapping(path = "/{uploadId}", method = RequestMethod.HEAD)
+    public ResponseEntity<Void> getOffset(@PathVariable UUID uploadId) {
+        try {
+            UUID userId = currentUserId();
+            if (userId == null) {
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+            }
+            UploadSession session = resumableUploadService.getSession(uploadId, userId);
+            return ResponseEntity.ok()
+                    .header("Tus-Resumable", TUS_VERSION)
+                    .header("Upload-Offset", String.valueOf(session.getUploadOffset()))
+                    .header("Upload-Length", String.valueOf(session.getUploadLength()))
+                    .header(HttpHeaders.CACHE_CONTROL, "no-store")
+                    .build();
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        } catch (ResumableUploadException e) {
+            return ResponseEntity.status(e.getStatus()).build();
+        }
+    }
+
+    @PatchMapping(path = "/{uploadId}", consumes = OFFSET_CONTENT_TYPE)
+    public ResponseEntity<Map<String, Object>> appendChunk(@PathVariable UUID uploadId,
+            @RequestHeader("Upload-Offset") long uploadOffset,
+            @RequestHeader(value = "Upload-Checksum", required = false) String uploadChecksum,
+            HttpServletRequest request) {
+        try {
+            UUID userId = currentUserId();
+            if (userId == null) {
+                return error(HttpStatus.UNAUTHORIZED.value(), "Authentication required");
+            }
+            long newOffset = resumableUploadService.appendChunk(uploadId, userId, uploadOffset,
+                    request.getInputStream(), uploadChecksum);
+            return ResponseEntity.noContent()
+                    .header("Tus-Resumable", TUS_VERSION)
+                    .header("Upload-Offset", String.valueOf(newOffset))
+                    .build();
+        } catch (ResourceNotFoundException e) {
+            return error(HttpStatus.NOT_FOUND.value(), e.getMessage());
+        } catch (ResumableUploadException e) {
+            return error(e.getStatus(), e.getMessage());
+        } catch (IOException e) {
+            // Typically the client dropped mid-chunk; it will HEAD for the offset and resume
+            logger.warn("Chunk for upload {} interrupted: {}", uploadId, e.getMessage());
+            return error(HttpStatus.INTERNAL_SERVER_ERROR.value(), "Failed to write chunk");
+        }
+    }
+
+    @PostMapping("/{uploadId}/finalize")
+    public ResponseEntity<Map<String, Object>> finalizeUpload(@PathVariable UUID uploadId) {
+        try {
+            UUID userId = currentUserId();
+            if (userId == null) {
+                return error(HttpStatus.UNAUTHORIZED.value(), "Authentication required");
+            }
+            FileRecord fileRecord = resumableUploadService.finalizeUpload(uploadId, userId);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("status", HttpStatus.OK.value());
+            response.put("message", "Upload finalized");
+            response.put("uploadId", uploadId);
+            response.put("fileId", fileRecord.getId());
+            response.put("filePath", fileRecord.getFilePath());
+            return ResponseEntity.ok(response);
+        } catch (ResourceNotFoundException e) {
+            return error(HttpStatus.NOT_FOUND.value(), e.getMessage());
+        } catch (ResumableUploadException e) {
+            return error(e.getStatus(), e.getMessage());
+        } catch (IOException e) {
+            logger.error("Failed to finalize upload {}: {}", uploadId, e.getMessage());
+            return error(HttpStatus.INTERNAL_SERVER_ERROR.value(), "Failed to finalize upload");
+        }
+    }
+
+    private UUID currentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()
+                || "anonymousUser".equals(authentication.getName())) {
+            logger.error("No valid authentication found");
+            return null;
+        }
+        return userService.getUserIdByEmail(authentication.getName());
+    }
+
+    // Upload-Metadata is a comma separated list of "key base64value" pairs
+    private Map<String, String> parseMetadata(String header) {
+        Map<String, String> metadata = new HashMap<>();
+        if (header == null || header.isBlank()) {
+            return metadata;
+        }
+        for (String pair : header.split(",")) {
+            String[] kv = pair.trim().split(" ", 2);
+            try {
+                String value = kv.length == 2
+                        ? new String(Base64.getDecoder().decode(kv[1].trim()), StandardCharsets.UTF_8)
+                        : "";
+                metadata.put(kv[0], value);
+            } catch (IllegalArgumentException e) {
+                throw new ResumableUploadException(HttpStatus.BAD_REQUEST.value(), "Invalid Upload-Metadata");
+            }
+        }
+        return metadata;
+    }
+
+    private ResponseEntity<Map<String, Object>> error(int status, String message) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", status);
+        response.put("message", message);
+        return ResponseEntity.status(status).header("Tus-Resumable", TUS_VERSION).body(response);
+    }
+}
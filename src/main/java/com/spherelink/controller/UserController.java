@@ -12,6 +12,7 @@ import java.util.UUID;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -32,8 +33,10 @@ import com.spherelink.model.User;
 import com.spherelink.model.User.AuthProvider;
 import com.spherelink.repository.UserRepository;
 import com.spherelink.repository.ViewRepository;
+import com.spherelink.service.CreatorProfileChangedEvent;
 import com.spherelink.service.FileService;
 import com.spherelink.service.JwtService;
+import com.spherelink.service.RenditionService;
 
 import jakarta.validation.Valid;
 
@@ -56,10 +59,16 @@ public class UserController {
     
     @Autowired
     private FileService fileService;
+
+    @Autowired
+    private RenditionService renditionService;
     
     @Autowired
     private ViewRepository viewRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     @Autowired
     public UserController(GoogleConfig googleConfig, FileService fileService) {
         this.googleConfig = googleConfig;
@@ -335,10 +344,12 @@ public class UserController {
                 if (fileRecord != null) {
                     user.setProfileImagePath(fileRecord.getFilePath());
                     logger.info("Profile image saved for user {}: {}", email, fileRecord.getFilePath());
+                    renditionService.schedule(fileRecord.getFilePath());
 
                     int updatedViews = viewRepository.updateCreatorProfileImagePath(
                             user.getUserId(), fileRecord.getFilePath());
                     logger.info("Updated creatorProfileImagePath for {} views for user: {}", updatedViews, email);
+                    eventPublisher.publishEvent(new CreatorProfileChangedEvent(user.getUserId()));
 
                     // Optionally, clean up the old profile image file if it exists
                     if (oldProfileImagePath != null && !oldProfileImagePath.isEmpty()) {
@@ -1,19 +1,21 @@
 package com.spherelink.controller;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.HashSet; // Changed from ArrayList to HashSet
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set; // Added for Set type
 import java.util.UUID;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -25,6 +27,7 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -33,16 +36,30 @@ import org.springframework.web.multipart.MaxUploadSizeExceededException;
 import org.springframework.web.multipart.MultipartFile;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.spherelink.config.FeedConfig;
+import com.spherelink.dto.CursorPage;
+import com.spherelink.dto.MapCluster;
+import com.spherelink.dto.ViewCard;
 import com.spherelink.exception.ResourceNotFoundException;
+import com.spherelink.exception.ResumableUploadException;
 import com.spherelink.model.FileRecord;
 import com.spherelink.model.Marker;
 import com.spherelink.model.MarkerBannerImage;
 import com.spherelink.model.PanoramaImage;
 import com.spherelink.model.Rating;
 import com.spherelink.model.ViewData;
+import com.spherelink.repository.ViewRepository;
+import com.spherelink.service.ETags;
 import com.spherelink.service.FileService;
+import com.spherelink.service.MapClusterService;
+import com.spherelink.service.ResumableUploadService;
+import com.spherelink.service.StorageBackend;
+import com.spherelink.service.StreamingUploadService;
 import com.spherelink.service.UserService;
 import com.spherelink.service.ViewService;
+import com.spherelink.service.ViewUpload;
+
+import jakarta.servlet.http.HttpServletRequest;
 
 @RestController
 @RequestMapping("/spherelink")
@@ -57,17 +74,37 @@ public class ViewController {
 	@Autowired
 	private FileService fileService;
 
+	@Autowired
+	private StreamingUploadService streamingUploadService;
+
+	@Autowired
+	private ResumableUploadService resumableUploadService;
+
 	@Autowired
 	private ObjectMapper objectMapper;
 
 	private static final Logger logger = LoggerFactory.getLogger(ViewController.class);
 
-	@Value("${app.base-url}")
-	private String BASE_URL;
+	private static final int MAX_NEAREST = 100;
+
+	// Clients may keep responses but must revalidate them with If-None-Match before reuse
+	private static final CacheControl FEED_CACHE = CacheControl.noCache();
+	private static final CacheControl OWN_VIEWS_CACHE = CacheControl.noCache().cachePrivate();
+
+	@Autowired
+	private StorageBackend storageBackend;
+
+	@Autowired
+	private FeedConfig feedConfig;
+
+	@Autowired
+	private MapClusterService mapClusterService;
 
 	@PostMapping(path = "/views", consumes = "multipart/form-data")
 	public ResponseEntity<Map<String, Object>> uploadViewData(
-			@RequestParam("thumbnailImage") MultipartFile thumbnailImage, @RequestParam("metadata") String metadataJson,
+			@RequestParam(value = "thumbnailImage", required = false) MultipartFile thumbnailImage,
+			@RequestParam(value = "thumbnailUploadId", required = false) UUID thumbnailUploadId,
+			@RequestParam("metadata") String metadataJson,
 			@RequestParam(value = "description", required = false) String description,
 			@RequestParam Map<String, String> allParams, @RequestParam Map<String, MultipartFile> fileParams)
 			throws Exception {
@@ -81,6 +118,12 @@ public class ViewController {
 			return ResponseEntity.status(401).body(createErrorResponse(401, "Authentication required"));
 		}
 
+		// The thumbnail is either sent with the form or uploaded beforehand through the resumable API
+		if (thumbnailImage == null && thumbnailUploadId == null) {
+			return ResponseEntity.badRequest().body(createErrorResponse(HttpStatus.BAD_REQUEST.value(),
+					"thumbnailImage or thumbnailUploadId is required"));
+		}
+
 		String currentUserEmail = authentication.getName();
 		logger.info("Processing request for user: {}", currentUserEmail);
 
@@ -117,52 +160,72 @@ public class ViewController {
 //        }
 
 		viewData.setUserId(userId);
-		FileRecord fileRecord = fileService.saveFile(thumbnailImage, "thumb_", false);
-		viewData.setThumbnailImagePath(fileRecord.getFilePath());
-
-		// Changed from List to Set
-		Set<PanoramaImage> panoramaImages = new HashSet<>();
-		int i = 0;
-		while (allParams.containsKey("panorama[" + i + "][imageName]")) {
-			PanoramaImage panorama = new PanoramaImage();
-			panorama.setView(viewData);
-			String imageName = allParams.get("panorama[" + i + "][imageName]");
-			MultipartFile panoFile = fileParams.get("panoramaImage_" + i);
-			if (panoFile != null) {
-				FileRecord panoRecord = fileService.saveFile(panoFile, "pano_", false);
-				panorama.setImagePath(panoRecord.getFilePath());
+		ViewUpload upload = new ViewUpload();
+		upload.setViewData(viewData);
+
+		// Resumable uploads are claimed as they are referenced; a failure below hands them back
+		try {
+			// Collect every file part first so they can be written in parallel below
+			Map<String, MultipartFile> assetFiles = new LinkedHashMap<>();
+			if (thumbnailUploadId != null) {
+				upload.referenceThumbnailPath(thumbnailUploadId,
+						resumableUploadService.claimFinalizedPath(thumbnailUploadId, userId));
+			} else if (thumbnailImage != null) {
+				assetFiles.put("thumbnailImage", thumbnailImage);
 			}
-			panorama.setImageName(imageName);
-
-			String markersJson = allParams.get("panorama[" + i + "][markers]");
-			List<Marker> markerList = objectMapper.readValue(markersJson,
-					objectMapper.getTypeFactory().constructCollectionType(List.class, Marker.class));
-			Set<Marker> markers = new HashSet<>(markerList);
-
-			for (int j = 0; j < markerList.size(); j++) {
-				Marker marker = markerList.get(j);
-
-				int bannerIndex = 0;
-				while (fileParams.containsKey("bannerImage_" + i + "_" + j + "_" + bannerIndex)) {
-					MultipartFile bannerFile = fileParams.get("bannerImage_" + i + "_" + j + "_" + bannerIndex);
-					if (bannerFile != null) {
-						FileRecord bannerRecord = fileService.saveFile(bannerFile, "banner_", false);
-						MarkerBannerImage markerBannerImage = new MarkerBannerImage();
-						markerBannerImage.setImagePath(bannerRecord.getFilePath());
-						marker.addMarkerBannerImage(markerBannerImage); // Add to the Set
+
+			int i = 0;
+			while (allParams.containsKey("panorama[" + i + "][imageName]")) {
+				upload.setImageName(i, allParams.get("panorama[" + i + "][imageName]"));
+				MultipartFile panoFile = fileParams.get("panoramaImage_" + i);
+				String panoUploadId = allParams.get("panorama[" + i + "][uploadId]");
+				if (panoFile != null) {
+					assetFiles.put("panoramaImage_" + i, panoFile);
+				} else if (panoUploadId != null) {
+					// Panorama was sent beforehand through the resumable upload API
+					UUID uploadId = UUID.fromString(panoUploadId);
+					upload.referencePanoramaPath(i, uploadId, resumableUploadService.claimFinalizedPath(uploadId, userId));
+				}
+
+				String markersJson = allParams.get("panorama[" + i + "][markers]");
+				List<Marker> markerList = markersJson != null
+						? objectMapper.readValue(markersJson,
+								objectMapper.getTypeFactory().constructCollectionType(List.class, Marker.class))
+						: new ArrayList<>();
+				upload.setMarkers(i, markerList);
+
+				for (int j = 0; j < markerList.size(); j++) {
+					int bannerIndex = 0;
+					while (fileParams.containsKey("bannerImage_" + i + "_" + j + "_" + bannerIndex)) {
+						assetFiles.put("bannerImage_" + i + "_" + j + "_" + bannerIndex,
+								fileParams.get("bannerImage_" + i + "_" + j + "_" + bannerIndex));
+						bannerIndex++;
 					}
-					bannerIndex++;
 				}
+				i++;
 			}
 
-			markers.forEach(marker -> marker.setPanoramaImage(panorama));
-			panorama.setMarkers(markers);
-			panoramaImages.add(panorama);
-			i++;
-		}
-		viewData.setPanoramaImages(panoramaImages);
+			// Writes run on the asset write pool; a failure removes whatever was already written
+			Map<String, FileRecord> savedFiles = fileService.saveFiles(assetFiles, key -> key.startsWith("panoramaImage_")
+					? "pano_" : key.startsWith("bannerImage_") ? "banner_" : "thumb_");
+			savedFiles.forEach((key, record) -> {
+				String[] parts = key.split("_");
+				if (key.startsWith("panoramaImage_")) {
+					upload.setPanoramaPath(Integer.parseInt(parts[1]), record.getFilePath());
+				} else if (key.startsWith("bannerImage_")) {
+					upload.setBannerPath(Integer.parseInt(parts[1]), Integer.parseInt(parts[2]), Integer.parseInt(parts[3]),
+							record.getFilePath());
+				} else {
+					upload.setThumbnailPath(record.getFilePath());
+				}
+			});
 
-		viewService.saveView(viewData);
+			viewService.saveView(upload.assemble());
+		} catch (Exception e) {
+			upload.getStoredPaths().forEach(fileService::deleteFile);
+			upload.getClaimedUploads().forEach(resumableUploadService::releaseClaim);
+			throw e;
+		}
 		logger.info("View data uploaded successfully for user: {}", currentUserEmail);
 
 		Map<String, Object> response = new HashMap<>();
@@ -171,8 +234,37 @@ public class ViewController {
 		return ResponseEntity.ok(response);
 	}
 
+	// Same form fields as POST /views, but the body is read once as a stream and each file part
+	// is written directly to its final location instead of going through container temp files
+	@PostMapping(path = "/views/stream", consumes = "multipart/form-data")
+	public ResponseEntity<Map<String, Object>> streamViewData(HttpServletRequest request) throws Exception {
+		Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+		if (authentication == null || !authentication.isAuthenticated()
+				|| "anonymousUser".equals(authentication.getName())) {
+			logger.error("No valid authentication found");
+			return ResponseEntity.status(401).body(createErrorResponse(401, "Authentication required"));
+		}
+
+		String currentUserEmail = authentication.getName();
+		logger.info("Processing streaming upload for user: {}", currentUserEmail);
+
+		UUID userId = userService.getUserIdByEmail(currentUserEmail);
+		if (userId == null) {
+			logger.error("User not found for email: {}", currentUserEmail);
+			return ResponseEntity.status(404).body(createErrorResponse(404, "User not found"));
+		}
+		streamingUploadService.ingestView(request, userId);
+		logger.info("View data streamed successfully for user: {}", currentUserEmail);
+
+		Map<String, Object> response = new HashMap<>();
+		response.put("status", 200);
+		response.put("message", "View data uploaded successfully");
+		return ResponseEntity.ok(response);
+	}
+
 	@GetMapping("/views")
-	public ResponseEntity<Map<String, Object>> getPublishedViews() {
+	public ResponseEntity<Map<String, Object>> getPublishedViews(
+			@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
 		Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
 		if (authentication == null || !authentication.isAuthenticated()
 				|| "anonymousUser".equals(authentication.getName())) {
@@ -187,32 +279,62 @@ public class ViewController {
 			return ResponseEntity.status(404).body(createErrorResponse(404, "User not found"));
 		}
 
+		// Taken before the load, so a concurrent change can only make the next poll refetch
+		String etag = ETags.of(Stream.concat(viewService.getViewVersions(userId).stream()
+				.map(version -> version.getViewId() + ":" + version.getVersion() + ":" + version.getRatingCount() + ":"
+						+ version.getUpdatedAt()),
+				Stream.of(storageBackend.urlEpoch())));
+		if (ETags.matches(ifNoneMatch, etag)) {
+			return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(OWN_VIEWS_CACHE).build();
+		}
+
 		List<ViewData> views = viewService.getViewsByUserId(userId);
 		logger.info("Fetched {} views for user: {}", views.size(), currentUserEmail);
-		for (ViewData view : views) {
-			// Normalize paths and prepend BASE_URL
-			String thumbnailPath = view.getThumbnailImagePath().replace("\\", "/");
-			view.setThumbnailImagePath(BASE_URL + "/" + thumbnailPath);
-			view.getPanoramaImages().forEach(pano -> {
-				String panoPath = pano.getImagePath().replace("\\", "/");
-				pano.setImagePath(BASE_URL + "/" + panoPath);
-				pano.getMarkers().forEach(marker -> {
-					logger.debug("Marker {} has {} banner images", marker.getMarkerId(),
-							marker.getMarkerBannerImages().size());
-					marker.getMarkerBannerImages().forEach(banner -> {
-						String bannerPath = banner.getImagePath().replace("\\", "/");
-						banner.setImagePath(BASE_URL + "/" + bannerPath);
-						logger.debug("Banner imagePath: {}", banner.getImagePath());
-					});
-				});
-			});
-		}
 
 		Map<String, Object> response = new HashMap<>();
 		response.put("status", 200);
 		response.put("message", "Published views retrieved successfully");
 		response.put("data", views);
-		return ResponseEntity.ok(response);
+		return ResponseEntity.ok().eTag(etag).cacheControl(OWN_VIEWS_CACHE).body(response);
+	}
+
+	@GetMapping("/views/{viewId}")
+	public ResponseEntity<Map<String, Object>> getViewDetail(@PathVariable UUID viewId,
+			@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+		try {
+			// Anonymous callers see public views; a signed-in owner also sees their private ones
+			UUID requesterId = null;
+			Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+			if (authentication != null && authentication.isAuthenticated()
+					&& !"anonymousUser".equals(authentication.getName())) {
+				requesterId = userService.getUserIdByEmail(authentication.getName());
+			}
+
+			ViewRepository.ViewVersion version = viewService.getVisibleViewVersion(viewId, requesterId);
+			CacheControl cacheControl = version.isPublicView() ? FEED_CACHE : OWN_VIEWS_CACHE;
+			String currentETag = viewETag(version.getViewId(), version.getVersion(), version.getRatingCount(),
+					version.getUpdatedAt());
+			if (ETags.matches(ifNoneMatch, currentETag)) {
+				return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(currentETag).cacheControl(cacheControl).build();
+			}
+
+			ViewData view = viewService.getViewDetail(viewId, requesterId);
+			Map<String, Object> response = new HashMap<>();
+			response.put("status", HttpStatus.OK.value());
+			response.put("message", "View retrieved successfully");
+			response.put("data", view);
+			// Tagged from the loaded graph, which may be older than the stamp if it joined a running load
+			return ResponseEntity.ok()
+					.eTag(viewETag(view.getViewId(), view.getVersion(), view.getRatingCount(), view.getUpdatedAt()))
+					.cacheControl(cacheControl).body(response);
+		} catch (ResourceNotFoundException e) {
+			return ResponseEntity.status(HttpStatus.NOT_FOUND)
+					.body(createErrorResponse(HttpStatus.NOT_FOUND.value(), e.getMessage()));
+		} catch (Exception e) {
+			logger.error("Error fetching view {}: {}", viewId, e.getMessage());
+			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+					.body(createErrorResponse(HttpStatus.INTERNAL_SERVER_ERROR.value(), "Error fetching view"));
+		}
 	}
 
 	@DeleteMapping("/views/{viewId}")
@@ -364,43 +486,115 @@ public class ViewController {
 	public ResponseEntity<Map<String, Object>> getPublicViews(@RequestParam(defaultValue = "1") int page,
 			@RequestParam(defaultValue = "10") int size, @RequestParam(required = false) String query,
 			@RequestParam(defaultValue = "all") String filter, @RequestParam(required = false) Double latitude,
-			@RequestParam(required = false) Double longitude) {
+			@RequestParam(required = false) Double longitude, @RequestParam(required = false) Double radiusKm,
+			@RequestParam(defaultValue = "offset") String mode, @RequestParam(required = false) String cursor,
+			@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+		if (size < 1) {
+			return ResponseEntity.badRequest()
+					.body(createErrorResponse(HttpStatus.BAD_REQUEST.value(), "size must be at least 1"));
+		}
 		try {
-			Page<ViewData> views = viewService.getPublicViews(page, size, query, filter, latitude, longitude);
-			for (ViewData view : views.getContent()) {
-				if (view.getThumbnailImagePath() != null) {
-					view.setThumbnailImagePath(BASE_URL + "/" + view.getThumbnailImagePath().replace("\\", "/"));
-				}
-				if (view.getCreatorProfileImagePath() != null && view.getCreatorProfileImagePath().startsWith("http")) {
-					view.setCreatorProfileImagePath(view.getCreatorProfileImagePath().replace("\\", "/"));
-				} else if (view.getCreatorProfileImagePath() != null) {
-					view.setCreatorProfileImagePath(
-							BASE_URL + "/" + view.getCreatorProfileImagePath().replace("\\", "/"));
+			Map<String, Object> response = new HashMap<>();
+			response.put("status", HttpStatus.OK.value());
+			response.put("message", "Public views retrieved successfully");
+			String etag;
+			if (useCursorPaging(mode, cursor)) {
+				CursorPage<ViewCard> views = viewService.getPublicViewsAfter(cursor, size, query, filter, latitude,
+						longitude, radiusKm);
+				etag = feedETag(views.items(), views.nextCursor());
+				if (ETags.matches(ifNoneMatch, etag)) {
+					return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(FEED_CACHE).build();
 				}
-				if (view.getPanoramaImages() != null) {
-					for (PanoramaImage pano : view.getPanoramaImages()) {
-						if (pano.getImagePath() != null) {
-							pano.setImagePath(BASE_URL + "/" + pano.getImagePath().replace("\\", "/"));
-						}
-						pano.setMarkers(null);
-					}
+				response.put("data", views.items());
+				response.put("nextCursor", views.nextCursor());
+			} else {
+				Page<ViewCard> views = viewService.getPublicViews(page, size, query, filter, latitude, longitude,
+						radiusKm);
+				etag = feedETag(views.getContent(), views.getTotalElements());
+				if (ETags.matches(ifNoneMatch, etag)) {
+					return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(FEED_CACHE).build();
 				}
+				response.put("data", views.getContent());
+				response.put("totalPages", views.getTotalPages());
+				response.put("totalElements", views.getTotalElements());
 			}
+			return ResponseEntity.ok().eTag(etag).cacheControl(FEED_CACHE).body(response);
+		} catch (IllegalArgumentException e) {
+			return ResponseEntity.badRequest().body(createErrorResponse(HttpStatus.BAD_REQUEST.value(), e.getMessage()));
+		} catch (Exception e) {
+			logger.error("Error fetching public views: {}", e.getMessage());
+			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+					.body(createErrorResponse(HttpStatus.INTERNAL_SERVER_ERROR.value(), "Error fetching public views"));
+		}
+	}
 
+	@GetMapping("/views/nearest")
+	public ResponseEntity<Map<String, Object>> getNearestViews(@RequestParam double latitude,
+			@RequestParam double longitude, @RequestParam(defaultValue = "10") int limit) {
+		if (limit < 1 || limit > MAX_NEAREST) {
+			return ResponseEntity.badRequest().body(
+					createErrorResponse(HttpStatus.BAD_REQUEST.value(), "limit must be between 1 and " + MAX_NEAREST));
+		}
+		try {
 			Map<String, Object> response = new HashMap<>();
 			response.put("status", HttpStatus.OK.value());
-			response.put("message", "Public views retrieved successfully");
-			response.put("data", views.getContent());
-			response.put("totalPages", views.getTotalPages());
-			response.put("totalElements", views.getTotalElements());
+			response.put("message", "Nearest views retrieved successfully");
+			response.put("data", viewService.getNearestViews(latitude, longitude, limit));
 			return ResponseEntity.ok(response);
 		} catch (Exception e) {
-			logger.error("Error fetching public views: {}", e.getMessage());
+			logger.error("Error fetching nearest views: {}", e.getMessage());
 			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-					.body(createErrorResponse(HttpStatus.INTERNAL_SERVER_ERROR.value(), "Error fetching public views"));
+					.body(createErrorResponse(HttpStatus.INTERNAL_SERVER_ERROR.value(), "Error fetching nearest views"));
 		}
 	}
 
+	@GetMapping("/views/map")
+	public ResponseEntity<Map<String, Object>> getMapClusters(@RequestParam String bbox, @RequestParam int zoom) {
+		String[] edges = bbox.split(",");
+		double[] box = new double[4];
+		try {
+			if (edges.length != 4) {
+				throw new NumberFormatException();
+			}
+			for (int i = 0; i < 4; i++) {
+				box[i] = Double.parseDouble(edges[i].trim());
+			}
+		} catch (NumberFormatException e) {
+			return ResponseEntity.badRequest().body(createErrorResponse(HttpStatus.BAD_REQUEST.value(),
+					"bbox must be west,south,east,north in degrees"));
+		}
+
+		List<MapCluster> clusters = mapClusterService.clusters(box[0], box[1], box[2], box[3], zoom);
+		if (clusters == null) {
+			return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(
+					createErrorResponse(HttpStatus.SERVICE_UNAVAILABLE.value(), "Map clusters are still loading"));
+		}
+		Map<String, Object> response = new HashMap<>();
+		response.put("status", HttpStatus.OK.value());
+		response.put("message", "Map clusters retrieved successfully");
+		response.put("zoom", zoom);
+		response.put("data", clusters);
+		return ResponseEntity.ok(response);
+	}
+
+	// Ratings do not bump the version, so the rating count stands in for them
+	private String viewETag(UUID viewId, Long version, Long ratingCount, LocalDateTime updatedAt) {
+		return ETags.of(Stream.of(viewId, version, ratingCount, updatedAt, storageBackend.urlEpoch()));
+	}
+
+	// Which views, at which versions and rating counts, plus the paging fields; the URL already
+	// identifies the query
+	private String feedETag(List<ViewCard> cards, Object paging) {
+		return ETags.of(Stream.concat(cards.stream()
+				.map(card -> card.viewId() + ":" + card.version() + ":" + card.ratingCount()),
+				Stream.of(paging, storageBackend.urlEpoch())));
+	}
+
+	// Offset paging is what old clients expect; new clients ask for cursors, and the flag can retire offsets
+	private boolean useCursorPaging(String mode, String cursor) {
+		return cursor != null || "cursor".equals(mode) || !feedConfig.isOffsetPaging();
+	}
+
 	@PostMapping("/views/{viewId}/ratings")
 	public ResponseEntity<Map<String, Object>> addRating(
 	        @PathVariable UUID viewId,
@@ -433,6 +627,9 @@ public class ViewController {
 	            return ResponseEntity.badRequest()
 	                    .body(createErrorResponse(HttpStatus.BAD_REQUEST.value(), "Failed to submit rating"));
 	        }
+	    } catch (ResourceNotFoundException e) {
+	        return ResponseEntity.status(HttpStatus.NOT_FOUND)
+	                .body(createErrorResponse(HttpStatus.NOT_FOUND.value(), e.getMessage()));
 	    } catch (Exception e) {
 	        logger.error("Error adding rating for view {}: {}", viewId, e.getMessage());
 	        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -444,7 +641,9 @@ public class ViewController {
 	public ResponseEntity<Map<String, Object>> getRatings(
 	        @PathVariable UUID viewId,
 	        @RequestParam(defaultValue = "1") int page,
-	        @RequestParam(defaultValue = "10") int size) {
+	        @RequestParam(defaultValue = "10") int size,
+	        @RequestParam(defaultValue = "offset") String mode,
+	        @RequestParam(required = false) String cursor) {
 	    try {
 	        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
 	        if (authentication == null || !authentication.isAuthenticated()
@@ -454,23 +653,22 @@ public class ViewController {
 	                    .body(createErrorResponse(HttpStatus.UNAUTHORIZED.value(), "Authentication required"));
 	        }
 
-	        Page<Rating> ratings = viewService.getRatings(viewId, page - 1, size); // Adjust page to 0-based
-	        List<Map<String, Object>> ratingList = ratings.getContent().stream().map(rating -> {
-	            Map<String, Object> ratingMap = new HashMap<>();
-	            ratingMap.put("userName", userService.getUserNameById(rating.getUserId()));
-	            ratingMap.put("stars", rating.getStars());
-	            ratingMap.put("comment", rating.getComment());
-	            ratingMap.put("createdAt", rating.getCreatedAt().toString());
-	            return ratingMap;
-	        }).collect(Collectors.toList());
-
 	        Map<String, Object> response = new HashMap<>();
 	        response.put("status", HttpStatus.OK.value());
 	        response.put("message", "Ratings retrieved successfully");
-	        response.put("data", ratingList);
-	        response.put("totalPages", ratings.getTotalPages());
-	        response.put("totalElements", ratings.getTotalElements());
+	        if (useCursorPaging(mode, cursor)) {
+	            CursorPage<Rating> ratings = viewService.getRatingsAfter(viewId, cursor, size);
+	            response.put("data", toRatingList(ratings.items()));
+	            response.put("nextCursor", ratings.nextCursor());
+	        } else {
+	            Page<Rating> ratings = viewService.getRatings(viewId, page - 1, size); // Adjust page to 0-based
+	            response.put("data", toRatingList(ratings.getContent()));
+	            response.put("totalPages", ratings.getTotalPages());
+	            response.put("totalElements", ratings.getTotalElements());
+	        }
 	        return ResponseEntity.ok(response);
+	    } catch (IllegalArgumentException e) {
+	        return ResponseEntity.badRequest().body(createErrorResponse(HttpStatus.BAD_REQUEST.value(), e.getMessage()));
 	    } catch (Exception e) {
 	        logger.error("Error fetching ratings for view {}: {}", viewId, e.getMessage());
 	        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -478,6 +676,43 @@ public class ViewController {
 	    }
 	}
 	
+	@GetMapping("/views/{viewId}/ratings/distribution")
+	public ResponseEntity<Map<String, Object>> getRatingDistribution(@PathVariable UUID viewId) {
+		try {
+			// Anonymous callers see public views; a signed-in owner also sees their private ones
+			UUID requesterId = null;
+			Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+			if (authentication != null && authentication.isAuthenticated()
+					&& !"anonymousUser".equals(authentication.getName())) {
+				requesterId = userService.getUserIdByEmail(authentication.getName());
+			}
+
+			Map<String, Object> response = new HashMap<>();
+			response.put("status", HttpStatus.OK.value());
+			response.put("message", "Rating distribution retrieved successfully");
+			response.put("data", viewService.getRatingDistribution(viewId, requesterId));
+			return ResponseEntity.ok(response);
+		} catch (ResourceNotFoundException e) {
+			return ResponseEntity.status(HttpStatus.NOT_FOUND)
+					.body(createErrorResponse(HttpStatus.NOT_FOUND.value(), e.getMessage()));
+		} catch (Exception e) {
+			logger.error("Error fetching rating distribution for view {}: {}", viewId, e.getMessage());
+			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(
+					createErrorResponse(HttpStatus.INTERNAL_SERVER_ERROR.value(), "Error fetching rating distribution"));
+		}
+	}
+
+	private List<Map<String, Object>> toRatingList(List<Rating> ratings) {
+	    return ratings.stream().map(rating -> {
+	        Map<String, Object> ratingMap = new HashMap<>();
+	        ratingMap.put("userName", userService.getUserNameById(rating.getUserId()));
+	        ratingMap.put("stars", rating.getStars());
+	        ratingMap.put("comment", rating.getComment());
+	        ratingMap.put("createdAt", rating.getCreatedAt().toString());
+	        return ratingMap;
+	    }).collect(Collectors.toList());
+	}
+
 	// Helper method for error responses
 	private Map<String, Object> createErrorResponse(int status, String message) {
 		Map<String, Object> response = new HashMap<>();
@@ -486,6 +721,18 @@ public class ViewController {
 		return response;
 	}
 
+	// A resumable upload that is unknown to the session store, not finalized or already claimed
+	@ExceptionHandler(ResumableUploadException.class)
+	public ResponseEntity<Map<String, Object>> handleResumableUpload(ResumableUploadException ex) {
+		return ResponseEntity.status(ex.getStatus()).body(createErrorResponse(ex.getStatus(), ex.getMessage()));
+	}
+
+	// Malformed form fields, such as an upload id that is not a UUID
+	@ExceptionHandler(IllegalArgumentException.class)
+	public ResponseEntity<Map<String, Object>> handleIllegalArgument(IllegalArgumentException ex) {
+		return ResponseEntity.badRequest().body(createErrorResponse(HttpStatus.BAD_REQUEST.value(), ex.getMessage()));
+	}
+
 	@RestControllerAdvice
 	public class GlobalExceptionHandler {
 
@@ -0,0 +1,14 @@
+package com.spherelink.dto;
+
+import java.util.UUID;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.spherelink.service.AssetUrlSerializer;
+
+/**
+ * One pin on the map: a single view when count is 1, otherwise a cluster placed at the centroid
+ * of its views. viewId and thumbnailImagePath belong to the best-rated view inside.
+ */
+public record MapCluster(double latitude, double longitude, int count, UUID viewId,
+        @JsonSerialize(using = AssetUrlSerializer.class) String thumbnailImagePath) {
+}
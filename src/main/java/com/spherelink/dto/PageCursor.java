@@ -0,0 +1,40 @@
+package com.spherelink.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Position after the last row of a keyset page: the sort key of that row plus its id as the tie
+ * breaker. Clients get it as an opaque base64url token; the ordering name is embedded so a
+ * cursor from one ordering cannot be replayed against another.
+ */
+public record PageCursor(String ordering, String key, UUID id) {
+
+    public String encode() {
+        String raw = ordering + "|" + (key == null ? "" : key) + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Parses a token produced by {@link #encode()}. Throws IllegalArgumentException when the
+     * token is malformed or belongs to a different ordering.
+     */
+    public static PageCursor decode(String token, String expectedOrdering) {
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Malformed cursor");
+        }
+        String[] parts = raw.split("\\|", -1);
+        if (parts.length != 3 || !parts[0].equals(expectedOrdering)) {
+            throw new IllegalArgumentException("Cursor does not match the requested ordering");
+        }
+        try {
+            return new PageCursor(parts[0], parts[1].isEmpty() ? null : parts[1], UUID.fromString(parts[2]));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Malformed cursor");
+        }
+    }
+}
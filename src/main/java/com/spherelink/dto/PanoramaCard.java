@@ -0,0 +1,13 @@
+package com.spherelink.dto;
+
+import java.util.UUID;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.spherelink.service.AssetUrlSerializer;
+
+/**
+ * A panorama as listed on a feed card: identity and image only, no markers.
+ */
+public record PanoramaCard(UUID imageId, String imageName,
+        @JsonSerialize(using = AssetUrlSerializer.class) String imagePath) {
+}
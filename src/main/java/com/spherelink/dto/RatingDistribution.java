@@ -0,0 +1,10 @@
+package com.spherelink.dto;
+
+import java.util.Map;
+
+/**
+ * A view's ratings at a glance, read from the aggregates kept on the view row: how many, their
+ * average, the Bayesian score most_rated sorts by (null while unrated) and the count per star.
+ */
+public record RatingDistribution(long ratingCount, double averageRating, Double ratingScore, Map<Integer, Long> stars) {
+}
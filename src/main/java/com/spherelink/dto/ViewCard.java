@@ -0,0 +1,43 @@
+package com.spherelink.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.spherelink.service.AssetUrlSerializer;
+
+/**
+ * Read-only row of the public views feed, projected straight from SQL. Field names match the
+ * JSON the feed returned when it serialised ViewData, so clients see the same shape.
+ * Paths hold stored paths and are written out as URLs. distanceKm is only present on nearby
+ * results; version is the view's row version, which ratings leave alone, so ratingCount is what
+ * tells rating changes apart.
+ */
+public record ViewCard(
+        UUID viewId,
+        String viewName,
+        String description,
+        String creatorName,
+        String cityName,
+        @JsonSerialize(using = AssetUrlSerializer.class) String creatorProfileImagePath,
+        Double latitude,
+        Double longitude,
+        @JsonSerialize(using = AssetUrlSerializer.class) String thumbnailImagePath,
+        @JsonProperty("public") boolean isPublic,
+        LocalDateTime dateTime,
+        UUID userId,
+        Double averageRating,
+        long ratingCount,
+        long version,
+        @JsonInclude(JsonInclude.Include.NON_NULL) Double distanceKm,
+        List<PanoramaCard> panoramaImages) {
+
+    public ViewCard withDistanceKm(Double distanceKm) {
+        return new ViewCard(viewId, viewName, description, creatorName, cityName, creatorProfileImagePath, latitude,
+                longitude, thumbnailImagePath, isPublic, dateTime, userId, averageRating, ratingCount, version,
+                distanceKm, panoramaImages);
+    }
+}
@@ -0,0 +1,18 @@
+package com.spherelink.exception;
+
+public class ResumableUploadException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	// HTTP status to report; not always a standard code (tus uses 460 for checksum mismatch)
+	private final int status;
+
+	public ResumableUploadException(int status, String message) {
+		super(message);
+		this.status = status;
+	}
+
+	public int getStatus() {
+		return status;
+	}
+}
@@ -3,7 +3,7 @@ package com.spherelink.model;
 import jakarta.persistence.*;
 
 @Entity
-@Table(name = "file_records") // Explicit table name
+@Table(name = "file_records", indexes = @Index(name = "idx_file_records_file_path", columnList = "file_path")) // Explicit table name
 public class FileRecord {
 
     @Id
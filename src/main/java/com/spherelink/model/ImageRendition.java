@@ -0,0 +1,86 @@
+package com.spherelink.model;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import jakarta.persistence.*;
+
+/**
+ * A resized, re-encoded copy of a stored image (thumbnail, banner or profile picture), recorded
+ * against the relative path of the original it was generated from.
+ */
+@Entity
+@Table(name = "image_renditions", indexes = @Index(name = "idx_image_renditions_original_path", columnList = "original_path"))
+public class ImageRendition {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    @Column(name = "rendition_id")
+    private UUID renditionId;
+
+    @Column(name = "original_path", nullable = false)
+    private String originalPath;
+
+    @Column(name = "file_path", nullable = false, unique = true)
+    private String filePath;
+
+    @Column(name = "format", nullable = false, length = 8)
+    private String format;
+
+    @Column(name = "width", nullable = false)
+    private int width;
+
+    @Column(name = "height", nullable = false)
+    private int height;
+
+    @Column(name = "size_bytes", nullable = false)
+    private long sizeBytes;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    public ImageRendition() {
+    }
+
+    public ImageRendition(String originalPath, String filePath, String format, int width, int height, long sizeBytes) {
+        this.originalPath = originalPath;
+        this.filePath = filePath;
+        this.format = format;
+        this.width = width;
+        this.height = height;
+        this.sizeBytes = sizeBytes;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    public UUID getRenditionId() {
+        return renditionId;
+    }
+
+    public String getOriginalPath() {
+        return originalPath;
+    }
+
+    public String getFilePath() {
+        return filePath;
+    }
+
+    public String getFormat() {
+        return format;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public long getSizeBytes() {
+        return sizeBytes;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+}
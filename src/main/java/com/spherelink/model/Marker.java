@@ -1,6 +1,10 @@
 package com.spherelink.model;
 
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import org.hibernate.annotations.Fetch;
+import org.hibernate.annotations.FetchMode;
 import jakarta.persistence.*;
 
 import java.util.HashSet;
@@ -11,7 +15,7 @@ import com.fasterxml.jackson.annotation.JsonBackReference;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 
 @Entity
-@Table(name = "markers")
+@Table(name = "markers", indexes = @Index(name = "idx_markers_image_id", columnList = "image_id"))
 @Data
 public class Marker {
     @Id
@@ -22,10 +26,15 @@ public class Marker {
     @ManyToOne
     @JoinColumn(name = "image_id", nullable = false)
     @JsonBackReference // Ignore this side during serialization
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
     private PanoramaImage panoramaImage;
     
     @OneToMany(mappedBy = "marker", cascade = CascadeType.ALL, orphanRemoval = true)
+    @Fetch(FetchMode.SUBSELECT)
     @JsonManagedReference
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
     private Set<MarkerBannerImage> markerBannerImages;
 
     @Column(name = "longitude", nullable = false)
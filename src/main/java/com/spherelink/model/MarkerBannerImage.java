@@ -1,13 +1,19 @@
 package com.spherelink.model;
 
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
 import jakarta.persistence.*;
 import java.util.UUID;
 
 import com.fasterxml.jackson.annotation.JsonBackReference;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.spherelink.service.AssetUrlSerializer;
 
 @Entity
-@Table(name = "marker_banner_images")
+@Table(name = "marker_banner_images", indexes = {
+        @Index(name = "idx_marker_banner_images_image_path", columnList = "image_path"),
+        @Index(name = "idx_marker_banner_images_marker_id", columnList = "marker_id") })
 @Data
 public class MarkerBannerImage {
     @Id
@@ -18,9 +24,12 @@ public class MarkerBannerImage {
     @ManyToOne
     @JoinColumn(name = "marker_id", nullable = false)
     @JsonBackReference // Ignore this side
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
     private Marker marker;
 
     @Column(name = "image_path", nullable = false)
+    @JsonSerialize(using = AssetUrlSerializer.class)
     private String imagePath;
 
     // Explicit getter for marker
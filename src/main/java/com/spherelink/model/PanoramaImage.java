@@ -1,6 +1,10 @@
 package com.spherelink.model;
 
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import org.hibernate.annotations.Fetch;
+import org.hibernate.annotations.FetchMode;
 import jakarta.persistence.*;
 import java.util.List;
 import java.util.Set;
@@ -8,9 +12,13 @@ import java.util.UUID;
 
 import com.fasterxml.jackson.annotation.JsonBackReference;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.spherelink.service.AssetUrlSerializer;
 
 @Entity
-@Table(name = "panorama_images")
+@Table(name = "panorama_images", indexes = {
+        @Index(name = "idx_panorama_images_image_path", columnList = "image_path"),
+        @Index(name = "idx_panorama_images_view_id", columnList = "view_id") })
 @Data
 public class PanoramaImage {
     @Id
@@ -21,19 +29,25 @@ public class PanoramaImage {
     @ManyToOne
     @JoinColumn(name = "view_id", nullable = false)
     @JsonBackReference // Ignore this side during serialization
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
     private ViewData view;
 
     @Column(name = "image_name", nullable = false)
     private String imageName;
 
     @Column(name = "image_path", nullable = false)
+    @JsonSerialize(using = AssetUrlSerializer.class)
     private String imagePath;
 
 //    @OneToMany(mappedBy = "panoramaImage", cascade = CascadeType.ALL, orphanRemoval = true)
 //    private List<Marker> markers;
     
     @OneToMany(mappedBy = "panoramaImage", cascade = CascadeType.ALL, orphanRemoval = true)
+    @Fetch(FetchMode.SUBSELECT)
     @JsonManagedReference // Serialize this side
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
     private Set<Marker> markers; // Change from List to Set
 
     public String getImagePath() {
@@ -1,6 +1,8 @@
 package com.spherelink.model;
 
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
 import java.util.UUID;
@@ -9,9 +11,12 @@ import com.fasterxml.jackson.annotation.JsonBackReference;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 @Entity
-@Table(name = "ratings")
+@Table(name = "ratings", indexes = {
+		@Index(name = "idx_ratings_view_created", columnList = "view_id, created_at, rating_id") })
 @Data
 public class Rating {
+	public static final int MAX_COMMENT_LENGTH = 800;
+
 	@Id
 	@GeneratedValue(strategy = GenerationType.AUTO)
 	@Column(name = "rating_id")
@@ -21,7 +26,7 @@ public class Rating {
 	@Column(name = "stars", nullable = false)
 	private Integer stars; // Rating value (1 to 5)
 
-	@Column(name = "comment", length = 800)
+	@Column(name = "comment", length = MAX_COMMENT_LENGTH)
 	private String comment; // Optional comment, max length 800 as per your TextField
 
 	@Column(name = "user_id", nullable = false)
@@ -33,6 +38,8 @@ public class Rating {
 	@ManyToOne(fetch = FetchType.LAZY)
 	@JoinColumn(name = "view_id", nullable = false)
 	@JsonBackReference // Avoid circular reference during serialization
+	@EqualsAndHashCode.Exclude
+	@ToString.Exclude
 	private ViewData view; // Reference to the associated view
 
 	// Constructor for setting default values
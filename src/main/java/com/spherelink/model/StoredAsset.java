@@ -0,0 +1,70 @@
+package com.spherelink.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.*;
+
+/**
+ * One physical file in the content-addressed store, keyed by the SHA-256 of its bytes. Every
+ * upload of identical content shares this file; refCount tracks how many saves point at it.
+ */
+@Entity
+@Table(name = "stored_assets", indexes = @Index(name = "idx_stored_assets_file_path", columnList = "file_path", unique = true))
+public class StoredAsset {
+
+    @Id
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
+    @Column(name = "file_path", nullable = false)
+    private String filePath;
+
+    @Column(name = "size_bytes", nullable = false)
+    private long sizeBytes;
+
+    @Column(name = "ref_count", nullable = false)
+    private int refCount;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    // Last time a save took a reference; the orphan sweeper leaves recently referenced content alone
+    @Column(name = "last_referenced_at", columnDefinition = "TIMESTAMP DEFAULT CURRENT_TIMESTAMP")
+    private LocalDateTime lastReferencedAt;
+
+    public StoredAsset() {
+    }
+
+    public StoredAsset(String contentHash, String filePath, long sizeBytes) {
+        this.contentHash = contentHash;
+        this.filePath = filePath;
+        this.sizeBytes = sizeBytes;
+        this.refCount = 1;
+        this.createdAt = LocalDateTime.now();
+        this.lastReferencedAt = this.createdAt;
+    }
+
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public String getFilePath() {
+        return filePath;
+    }
+
+    public long getSizeBytes() {
+        return sizeBytes;
+    }
+
+    public int getRefCount() {
+        return refCount;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public LocalDateTime getLastReferencedAt() {
+        return lastReferencedAt;
+    }
+}
@@ -0,0 +1,122 @@
+package com.spherelink.model;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import jakarta.persistence.*;
+
+@Entity
+@Table(name = "upload_sessions")
+public class UploadSession {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    @Column(name = "upload_id")
+    private UUID uploadId;
+
+    @Column(name = "user_id")
+    private UUID userId;
+
+    @Column(name = "file_name", nullable = false)
+    private String fileName;
+
+    @Column(name = "file_prefix", nullable = false)
+    private String filePrefix;
+
+    @Column(name = "upload_length", nullable = false)
+    private long uploadLength;
+
+    @Column(name = "upload_offset", nullable = false)
+    private long uploadOffset;
+
+    // Set once the upload has been moved into Uploads/ and recorded as a FileRecord
+    @Column(name = "file_record_id")
+    private Long fileRecordId;
+
+    // Set once a view references the finalized file, so the file is owned by exactly one view
+    @Column(name = "consumed_at")
+    private LocalDateTime consumedAt;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    public UploadSession() {
+        this.createdAt = LocalDateTime.now();
+        this.updatedAt = this.createdAt;
+    }
+
+    public UUID getUploadId() {
+        return uploadId;
+    }
+
+    public UUID getUserId() {
+        return userId;
+    }
+
+    public void setUserId(UUID userId) {
+        this.userId = userId;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public void setFileName(String fileName) {
+        this.fileName = fileName;
+    }
+
+    public String getFilePrefix() {
+        return filePrefix;
+    }
+
+    public void setFilePrefix(String filePrefix) {
+        this.filePrefix = filePrefix;
+    }
+
+    public long getUploadLength() {
+        return uploadLength;
+    }
+
+    public void setUploadLength(long uploadLength) {
+        this.uploadLength = uploadLength;
+    }
+
+    public long getUploadOffset() {
+        return uploadOffset;
+    }
+
+    public void setUploadOffset(long uploadOffset) {
+        this.uploadOffset = uploadOffset;
+    }
+
+    public Long getFileRecordId() {
+        return fileRecordId;
+    }
+
+    public void setFileRecordId(Long fileRecordId) {
+        this.fileRecordId = fileRecordId;
+    }
+
+    public LocalDateTime getConsumedAt() {
+        return consumedAt;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public boolean isComplete() {
+        return uploadOffset == uploadLength;
+    }
+}
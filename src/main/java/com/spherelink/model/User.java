@@ -6,7 +6,7 @@ import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 
 @Entity
-@Table(name = "users")  
+@Table(name = "users", indexes = @Index(name = "idx_users_profile_image_path", columnList = "profile_image_path"))
 public class User {
     
     public enum AuthProvider {
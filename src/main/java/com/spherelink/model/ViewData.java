@@ -1,6 +1,10 @@
 package com.spherelink.model;
 
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import org.hibernate.annotations.Fetch;
+import org.hibernate.annotations.FetchMode;
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
 import java.util.List;
@@ -10,9 +14,15 @@ import java.util.UUID;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.spherelink.service.AssetUrlSerializer;
 
 @Entity
-@Table(name = "views")
+@Table(name = "views", indexes = {
+		@Index(name = "idx_views_thumbnail_image", columnList = "thumbnail_image"),
+		@Index(name = "idx_views_creator_profile_image_path", columnList = "creator_profile_image_path"),
+		@Index(name = "idx_views_public_recent", columnList = "is_public, date_time, view_id"),
+		@Index(name = "idx_views_user_id", columnList = "user_id") })
 @Data
 public class ViewData {
 	@Id
@@ -34,6 +44,7 @@ public class ViewData {
 	private String cityName;
 
 	@Column(name = "creator_profile_image_path", nullable = false)
+	@JsonSerialize(using = AssetUrlSerializer.class)
 	private String creatorProfileImagePath;
 
 	@Column(name = "latitude", nullable = false, columnDefinition = "double precision")
@@ -43,6 +54,7 @@ public class ViewData {
 	private Double longitude;
 
 	@Column(name = "thumbnail_image")
+	@JsonSerialize(using = AssetUrlSerializer.class)
 	private String thumbnailImagePath;
 
 	@Column(name = "is_public", columnDefinition = "BOOLEAN DEFAULT TRUE")
@@ -57,25 +69,73 @@ public class ViewData {
 //    @OneToMany(mappedBy = "view", cascade = CascadeType.ALL, orphanRemoval = true)
 //    private List<PanoramaImage> panoramaImages;
 
+	// Initialising one view's panoramas loads those of every view from the same query
 	@OneToMany(mappedBy = "view", cascade = CascadeType.ALL, orphanRemoval = true)
+	@Fetch(FetchMode.SUBSELECT)
 	@JsonManagedReference // Serialize this side
+	// Hibernate hashes panoramas while it fills this set, so relationships stay out of the
+	// generated equals/hashCode (and toString) on every entity; hashing them would load them
+	@EqualsAndHashCode.Exclude
+	@ToString.Exclude
 	private Set<PanoramaImage> panoramaImages;
 
-	@Column(name = "average_rating", columnDefinition = "DOUBLE PRECISION DEFAULT 0.0")
+	// Rating aggregates are only written by RatingAggregates, one atomic UPDATE per rating or
+	// batch, so saving a stale copy of the view can never roll them back
+	@Column(name = "average_rating", columnDefinition = "DOUBLE PRECISION DEFAULT 0.0", insertable = false, updatable = false)
 	private Double averageRating;
 
+	@Column(name = "rating_count", columnDefinition = "BIGINT NOT NULL DEFAULT 0", insertable = false, updatable = false)
+	private Long ratingCount;
+
+	@Column(name = "rating_sum", columnDefinition = "BIGINT NOT NULL DEFAULT 0", insertable = false, updatable = false)
+	@JsonIgnore
+	private Long ratingSum;
+
+	// Ratings per star value, served by the distribution endpoint
+	@Column(name = "stars_1", columnDefinition = "BIGINT NOT NULL DEFAULT 0", insertable = false, updatable = false)
+	@JsonIgnore
+	private Long stars1;
+
+	@Column(name = "stars_2", columnDefinition = "BIGINT NOT NULL DEFAULT 0", insertable = false, updatable = false)
+	@JsonIgnore
+	private Long stars2;
+
+	@Column(name = "stars_3", columnDefinition = "BIGINT NOT NULL DEFAULT 0", insertable = false, updatable = false)
+	@JsonIgnore
+	private Long stars3;
+
+	@Column(name = "stars_4", columnDefinition = "BIGINT NOT NULL DEFAULT 0", insertable = false, updatable = false)
+	@JsonIgnore
+	private Long stars4;
+
+	@Column(name = "stars_5", columnDefinition = "BIGINT NOT NULL DEFAULT 0", insertable = false, updatable = false)
+	@JsonIgnore
+	private Long stars5;
+
+	// Bayesian average the most_rated feed sorts by; null until the view is rated
+	@Column(name = "rating_score", columnDefinition = "DOUBLE PRECISION", insertable = false, updatable = false)
+	private Double ratingScore;
+
 	@OneToMany(mappedBy = "view", cascade = CascadeType.ALL, orphanRemoval = true)
 	@JsonIgnore
+	@EqualsAndHashCode.Exclude
+	@ToString.Exclude
 	private Set<Rating> ratings;
 
-	// Method to calculate and update the average rating
-	public void calculateAverageRating() {
-		if (ratings == null || ratings.isEmpty()) {
-			this.averageRating = 0.0;
-		} else {
-			double totalStars = ratings.stream().mapToInt(Rating::getStars).sum();
-			this.averageRating = totalStars / ratings.size();
-		}
+	// Bumped on every edit of the row or its collections; with ratingCount and updatedAt it makes
+	// up the ETag. Ratings do not bump it. Clients can read it but never set it.
+	@Version
+	@Column(name = "version", nullable = false, columnDefinition = "BIGINT DEFAULT 0")
+	@JsonProperty(access = JsonProperty.Access.READ_ONLY)
+	private Long version;
+
+	@Column(name = "updated_at", columnDefinition = "TIMESTAMP DEFAULT CURRENT_TIMESTAMP")
+	private LocalDateTime updatedAt;
+
+	@PrePersist
+	@PreUpdate
+	void touch() {
+		this.updatedAt = LocalDateTime.now();
 	}
 
 	public String getThumbnailImagePath() {
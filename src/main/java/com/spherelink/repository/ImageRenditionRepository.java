@@ -0,0 +1,26 @@
+package com.spherelink.repository;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.spherelink.model.ImageRendition;
+
+@Repository
+public interface ImageRenditionRepository extends JpaRepository<ImageRendition, UUID> {
+
+    List<ImageRendition> findByOriginalPath(String originalPath);
+
+    boolean existsByOriginalPath(String originalPath);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ImageRendition r WHERE r.originalPath = :originalPath")
+    int deleteByOriginalPath(@Param("originalPath") String originalPath);
+}
@@ -0,0 +1,11 @@
+package com.spherelink.repository;
+
+import com.spherelink.model.PanoramaImage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.UUID;
+
+@Repository
+public interface PanoramaImageRepository extends JpaRepository<PanoramaImage, UUID> {
+}
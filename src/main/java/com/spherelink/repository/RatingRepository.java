@@ -1,5 +1,7 @@
 package com.spherelink.repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.UUID;
 
 import org.springframework.data.domain.Page;
@@ -11,6 +13,17 @@ import org.springframework.data.repository.query.Param;
 import com.spherelink.model.Rating;
 
 public interface RatingRepository extends JpaRepository<Rating, UUID> {
-	@Query("SELECT r FROM Rating r WHERE r.view.viewId = :viewId")
+	@Query("SELECT r FROM Rating r WHERE r.view.viewId = :viewId ORDER BY r.createdAt DESC, r.ratingId DESC")
     Page<Rating> findByViewId(@Param("viewId") UUID viewId, Pageable pageable);
+
+	// Keyset pages, newest first
+	@Query("SELECT r FROM Rating r WHERE r.view.viewId = :viewId ORDER BY r.createdAt DESC, r.ratingId DESC")
+	List<Rating> findFirstPage(@Param("viewId") UUID viewId, Pageable limit);
+
+	// The redundant createdAt bound gives the index scan its start key
+	@Query("SELECT r FROM Rating r WHERE r.view.viewId = :viewId AND r.createdAt <= :createdAt "
+			+ "AND (r.createdAt < :createdAt OR r.ratingId < :ratingId) "
+			+ "ORDER BY r.createdAt DESC, r.ratingId DESC")
+	List<Rating> findPageAfter(@Param("viewId") UUID viewId, @Param("createdAt") LocalDateTime createdAt,
+			@Param("ratingId") UUID ratingId, Pageable limit);
 }
\ No newline at end of file
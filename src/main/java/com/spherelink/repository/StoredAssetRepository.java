@@ -0,0 +1,15 @@
+package com.spherelink.repository;
+
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.spherelink.model.StoredAsset;
+
+@Repository
+public interface StoredAssetRepository extends JpaRepository<StoredAsset, String> {
+
+    // Reference counts are changed by ContentAddressedStore in single conditional SQL statements
+    Optional<StoredAsset> findByFilePath(String filePath);
+}
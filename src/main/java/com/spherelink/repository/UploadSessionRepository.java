@@ -0,0 +1,50 @@
+package com.spherelink.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.spherelink.model.UploadSession;
+
+@Repository
+public interface UploadSessionRepository extends JpaRepository<UploadSession, UUID> {
+
+    // Compare-and-set on the offset so two PATCHes racing on one session cannot both commit
+    @Modifying
+    @Transactional
+    @Query("UPDATE UploadSession s SET s.uploadOffset = :newOffset, s.updatedAt = :now " +
+           "WHERE s.uploadId = :uploadId AND s.uploadOffset = :expectedOffset")
+    int advanceOffset(@Param("uploadId") UUID uploadId, @Param("expectedOffset") long expectedOffset,
+                      @Param("newOffset") long newOffset, @Param("now") LocalDateTime now);
+
+    // Compare-and-set as well: of two views claiming one finalized upload, only one succeeds
+    @Modifying
+    @Transactional
+    @Query("UPDATE UploadSession s SET s.consumedAt = :now, s.updatedAt = :now " +
+           "WHERE s.uploadId = :uploadId AND s.fileRecordId IS NOT NULL AND s.consumedAt IS NULL")
+    int markConsumed(@Param("uploadId") UUID uploadId, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE UploadSession s SET s.consumedAt = NULL, s.updatedAt = :now WHERE s.uploadId = :uploadId")
+    int clearConsumed(@Param("uploadId") UUID uploadId, @Param("now") LocalDateTime now);
+
+    // Sessions no view has claimed, untouched since the cutoff, oldest first
+    @Query("SELECT s FROM UploadSession s WHERE s.consumedAt IS NULL AND s.updatedAt < :cutoff ORDER BY s.updatedAt")
+    List<UploadSession> findExpired(@Param("cutoff") LocalDateTime cutoff, Pageable pageable);
+
+    // Conditional, so a session claimed or resumed since it was read is kept
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM UploadSession s " +
+           "WHERE s.uploadId = :uploadId AND s.consumedAt IS NULL AND s.updatedAt < :cutoff")
+    int deleteIfExpired(@Param("uploadId") UUID uploadId, @Param("cutoff") LocalDateTime cutoff);
+}
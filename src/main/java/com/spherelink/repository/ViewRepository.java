@@ -1,56 +1,94 @@
 
 package com.spherelink.repository;
 
+import com.spherelink.model.Marker;
+import com.spherelink.model.PanoramaImage;
 import com.spherelink.model.ViewData;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
-public interface ViewRepository extends JpaRepository<ViewData, UUID> {
-    @Query("SELECT v FROM ViewData v " +
-           "LEFT JOIN FETCH v.panoramaImages p " +
-           "LEFT JOIN FETCH p.markers m " +
-           "LEFT JOIN FETCH m.markerBannerImages " +
-           "WHERE v.userId = :userId")
+public interface ViewRepository extends JpaRepository<ViewData, UUID>, ViewRepositoryCustom {
+    // Views only; the panorama, marker and banner levels follow as one subselect query each
+    @Query("SELECT v FROM ViewData v WHERE v.userId = :userId")
     List<ViewData> findByUserId(UUID userId);
 
-    @Query("SELECT v FROM ViewData v WHERE v.isPublic = true " +
-           "AND (:query IS NULL OR " +
-           "v.viewName ILIKE CONCAT('%', :query, '%') OR " +
-           "v.cityName ILIKE CONCAT('%', :query, '%') OR " +
-           "v.creatorName ILIKE CONCAT('%', :query, '%'))")
-    Page<ViewData> findPublicViewsAll(String query, Pageable pageable);
-
-    @Query("SELECT v FROM ViewData v WHERE v.isPublic = true " +
-           "AND (:query IS NULL OR " +
-           "v.viewName ILIKE CONCAT('%', :query, '%') OR " +
-           "v.cityName ILIKE CONCAT('%', :query, '%') OR " +
-           "v.creatorName ILIKE CONCAT('%', :query, '%')) " +
-           "ORDER BY v.dateTime DESC NULLS LAST")
-    Page<ViewData> findPublicViewsRecent(String query, Pageable pageable);
-
-    @Query("SELECT v FROM ViewData v WHERE v.isPublic = true " +
-           "AND (:query IS NULL OR " +
-           "v.viewName ILIKE CONCAT('%', :query, '%') OR " +
-           "v.cityName ILIKE CONCAT('%', :query, '%') OR " +
-           "v.creatorName ILIKE CONCAT('%', :query, '%')) " +
-           "ORDER BY v.averageRating DESC NULLS LAST")
-    Page<ViewData> findPublicViewsMostRated(String query, Pageable pageable);
-
-    @Query(value = "SELECT * FROM views v WHERE v.is_public = true " +
-           "AND (:query IS NULL OR v.view_name ILIKE '%' || :query || '%' OR v.city_name ILIKE '%' || :query || '%' OR v.creator_name ILIKE '%' || :query || '%') " +
-           "AND (6371 * acos(cos(radians(:latitude)) * cos(radians(v.latitude)) * cos(radians(v.longitude) - radians(:longitude)) + sin(radians(:latitude)) * sin(radians(v.latitude)))) < :radius",
-           nativeQuery = true)
-    Page<ViewData> findNearbyViews(String query, double latitude, double longitude, double radius, Pageable pageable);
-    
-    
+    // Bulk updates skip @Version, so the version is bumped by hand to change the views' ETags
     @Modifying
-    @Query("UPDATE ViewData v SET v.creatorProfileImagePath = :newImagePath WHERE v.userId = :userId")
+    @Query("UPDATE ViewData v SET v.creatorProfileImagePath = :newImagePath, v.version = v.version + 1, " +
+           "v.updatedAt = CURRENT_TIMESTAMP WHERE v.userId = :userId")
     int updateCreatorProfileImagePath(@Param("userId") UUID userId, @Param("newImagePath") String newImagePath);
+
+    @Query("SELECT v.ratingCount AS ratingCount, v.averageRating AS averageRating, v.ratingScore AS ratingScore, " +
+           "v.stars1 AS stars1, v.stars2 AS stars2, v.stars3 AS stars3, v.stars4 AS stars4, v.stars5 AS stars5, " +
+           "v.userId AS userId, v.isPublic AS publicView FROM ViewData v WHERE v.viewId = :viewId")
+    Optional<RatingHistogram> findRatingHistogramById(@Param("viewId") UUID viewId);
+
+    /**
+     * Version stamps of a user's views, enough to tell whether the full graphs changed without
+     * loading them.
+     */
+    @Query("SELECT v.viewId AS viewId, v.version AS version, v.ratingCount AS ratingCount, " +
+           "v.updatedAt AS updatedAt, v.userId AS userId, v.isPublic AS publicView " +
+           "FROM ViewData v WHERE v.userId = :userId ORDER BY v.viewId")
+    List<ViewVersion> findVersionsByUserId(@Param("userId") UUID userId);
+
+    @Query("SELECT v.viewId AS viewId, v.version AS version, v.ratingCount AS ratingCount, " +
+           "v.updatedAt AS updatedAt, v.userId AS userId, v.isPublic AS publicView " +
+           "FROM ViewData v WHERE v.viewId = :viewId")
+    Optional<ViewVersion> findVersionById(@Param("viewId") UUID viewId);
+
+    // The detail graph in three queries, one per level, run in one persistence context. Each
+    // fetches a single collection, so rows do not multiply across levels.
+    @Query("SELECT v FROM ViewData v LEFT JOIN FETCH v.panoramaImages WHERE v.viewId = :viewId")
+    Optional<ViewData> findWithPanoramasById(@Param("viewId") UUID viewId);
+
+    @Query("SELECT p FROM PanoramaImage p LEFT JOIN FETCH p.markers WHERE p.view.viewId = :viewId")
+    List<PanoramaImage> fetchMarkersByViewId(@Param("viewId") UUID viewId);
+
+    @Query("SELECT m FROM Marker m LEFT JOIN FETCH m.markerBannerImages WHERE m.panoramaImage.view.viewId = :viewId")
+    List<Marker> fetchBannerImagesByViewId(@Param("viewId") UUID viewId);
+
+    interface RatingHistogram {
+        Long getRatingCount();
+
+        Double getAverageRating();
+
+        Double getRatingScore();
+
+        Long getStars1();
+
+        Long getStars2();
+
+        Long getStars3();
+
+        Long getStars4();
+
+        Long getStars5();
+
+        UUID getUserId();
+
+        boolean isPublicView();
+    }
+
+    interface ViewVersion {
+        UUID getViewId();
+
+        Long getVersion();
+
+        // Ratings leave the version alone; every rating bumps this instead
+        Long getRatingCount();
+
+        LocalDateTime getUpdatedAt();
+
+        UUID getUserId();
+
+        boolean isPublicView();
+    }
 }
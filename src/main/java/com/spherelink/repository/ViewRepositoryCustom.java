@@ -0,0 +1,67 @@
+package com.spherelink.repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import com.spherelink.dto.CursorPage;
+import com.spherelink.dto.PageCursor;
+import com.spherelink.dto.ViewCard;
+
+public interface ViewRepositoryCustom {
+
+    String ALL = "all";
+    String RECENT = "recent";
+    String MOST_RATED = "most_rated";
+    String RELEVANCE = "relevance";
+    String NEARBY = "nearby";
+
+    /**
+     * One page of the public feed as cards, panoramas included, in a single query (plus the
+     * count). filter is all, recent, most_rated or nearby; nearby needs latitude and longitude,
+     * keeps views within radiusKm and orders them nearest first with their distance filled in.
+     * query, when given, matches words by prefix or any substring of name, city and creator.
+     */
+    Page<ViewCard> findPublicCards(String query, String filter, Double latitude, Double longitude, double radiusKm,
+            Pageable pageable);
+
+    /**
+     * Keyset variant of {@link #findPublicCards}: up to size cards strictly after the cursor
+     * (null for the first page), in the same order. No count query is issued.
+     */
+    CursorPage<ViewCard> findPublicCardsAfter(String query, String filter, Double latitude, Double longitude,
+            double radiusKm, PageCursor after, int size);
+
+    /**
+     * The limit public views nearest to a point however far away they are, nearest first with
+     * their distance filled in. Views tied at the same distance as the last one may be left out.
+     */
+    List<ViewCard> findNearestPublicCards(double latitude, double longitude, int limit);
+
+    /**
+     * Cards of the given views that are still public, in no particular order and without
+     * distance. Used when another index has already picked and ordered the ids.
+     */
+    List<ViewCard> findPublicCardsByIds(Collection<UUID> viewIds);
+
+    /**
+     * The ordering a request sorts by: recent or most_rated when asked for, nearby when asked
+     * for with coordinates, relevance for the all filter with a search term, otherwise all (by id).
+     */
+    static String orderingOf(String filter, String query, Double latitude, Double longitude) {
+        if (RECENT.equals(filter) || MOST_RATED.equals(filter)) {
+            return filter;
+        }
+        if (NEARBY.equals(filter) && latitude != null && longitude != null) {
+            return NEARBY;
+        }
+        return ALL.equals(filter) && searchTerm(query) != null ? RELEVANCE : ALL;
+    }
+
+    static String searchTerm(String query) {
+        return query == null || query.isBlank() ? null : query.trim();
+    }
+}
@@ -0,0 +1,282 @@
+package com.spherelink.repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.spherelink.dto.CursorPage;
+import com.spherelink.dto.PageCursor;
+import com.spherelink.dto.PanoramaCard;
+import com.spherelink.dto.ViewCard;
+
+/**
+ * Feed queries that bypass the persistence context. Each card is one row; its panoramas are
+ * aggregated into a JSON array by a correlated subquery, so a page costs one round trip no
+ * matter how many markers, banners or ratings the views have. Keyset pages filter on the sort
+ * key of the previous page's last row instead of skipping rows, so page 50 costs the same as
+ * page 1 and needs no count.
+ *
+ * Search goes through the generated search_text and search_vector columns (see db/schema.sql):
+ * a trigram GIN index answers the substring match, a tsvector GIN index the word-prefix match
+ * that also drives relevance ranking. Nearby runs on a GiST index over ll_to_earth(latitude,
+ * longitude): an earth_box test narrows the rows before the exact distance check, and the same
+ * index hands rows back nearest first.
+ */
+class ViewRepositoryCustomImpl implements ViewRepositoryCustom {
+
+    private static final String CARD_COLUMNS =
+            "SELECT v.view_id, v.view_name, v.description, v.creator_name, v.city_name, "
+            + "v.creator_profile_image_path, v.latitude, v.longitude, v.thumbnail_image, v.is_public, "
+            + "v.date_time, v.user_id, v.average_rating, v.rating_count, v.version, "
+            + "(SELECT COALESCE(json_agg(json_build_object('imageId', p.image_id, 'imageName', p.image_name, "
+            + "'imagePath', p.image_path) ORDER BY p.image_id), '[]') "
+            + "FROM panorama_images p WHERE p.view_id = v.view_id) AS panoramas, ";
+
+    private static final String DISTANCE_COLUMN =
+            "earth_distance(ll_to_earth(v.latitude, v.longitude), ll_to_earth(:latitude, :longitude)) / 1000 "
+            + "AS distance_km ";
+
+    private static final String NO_DISTANCE_COLUMN = "CAST(NULL AS double precision) AS distance_km ";
+
+    private static final String PUBLIC_FILTER = "FROM views v WHERE v.is_public = true ";
+
+    // Either index can answer its half, so Postgres combines them with a BitmapOr
+    private static final String SEARCH_FILTER =
+            "AND (v.search_text ILIKE '%' || :query || '%' OR v.search_vector @@ to_tsquery('simple', :tsquery)) ";
+
+    private static final String SUBSTRING_FILTER = "AND v.search_text ILIKE '%' || :query || '%' ";
+
+    // The box test is answered by the GiST index on ll_to_earth; only rows inside it get the exact check
+    private static final String NEARBY_FILTER =
+            "AND earth_box(ll_to_earth(:latitude, :longitude), :radius) @> ll_to_earth(v.latitude, v.longitude) "
+            + "AND earth_distance(ll_to_earth(v.latitude, v.longitude), ll_to_earth(:latitude, :longitude)) < :radius ";
+
+    // Bayesian score, so a single 5-star rating does not outrank many slightly lower ones. Unrated
+    // views sort as 0, below every rated one; db/schema.sql indexes this exact expression
+    private static final String RATING_KEY = "COALESCE(v.rating_score, 0)";
+
+    // Straight-line distance between the points on the earth cube: it grows with the surface distance,
+    // and the GiST index can return rows in <-> order without sorting them
+    private static final String DISTANCE_KEY =
+            "ll_to_earth(v.latitude, v.longitude) <-> ll_to_earth(:latitude, :longitude)";
+
+    // Ordered by distance alone, so the GiST index walks outwards from the point and stops at the
+    // limit; a second key, or an earth_box spanning the globe, makes Postgres sort every public view
+    private static final String NEAREST_IDS =
+            "FROM (SELECT view_id FROM views WHERE is_public = true ORDER BY ll_to_earth(latitude, longitude) "
+            + "<-> ll_to_earth(:latitude, :longitude) LIMIT :limit) n JOIN views v ON v.view_id = n.view_id ";
+
+    private static final String RELEVANCE_KEY = "ts_rank(v.search_vector, to_tsquery('simple', :tsquery))";
+
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final TypeReference<List<PanoramaCard>> PANORAMA_LIST = new TypeReference<>() {
+    };
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    ViewRepositoryCustomImpl(NamedParameterJdbcTemplate jdbcTemplate, ObjectMapper objectMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public Page<ViewCard> findPublicCards(String query, String filter, Double latitude, Double longitude,
+            double radiusKm, Pageable pageable) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("limit", pageable.getPageSize())
+                .addValue("offset", pageable.getOffset());
+        String ordering = ViewRepositoryCustom.orderingOf(filter, query, latitude, longitude);
+        String where = whereClause(query, ordering, latitude, longitude, radiusKm, params);
+
+        List<ViewCard> cards = jdbcTemplate.query(
+                selectColumns(ordering) + where + orderBy(ordering) + "LIMIT :limit OFFSET :offset", params,
+                cardMapper());
+        // The count query only runs when the page alone cannot tell the total
+        String countSql = "SELECT COUNT(*) " + where;
+        return PageableExecutionUtils.getPage(cards, pageable,
+                () -> jdbcTemplate.queryForObject(countSql, params, Long.class));
+    }
+
+    @Override
+    public CursorPage<ViewCard> findPublicCardsAfter(String query, String filter, Double latitude,
+            Double longitude, double radiusKm, PageCursor after, int size) {
+        // One extra row tells whether a next page exists
+        MapSqlParameterSource params = new MapSqlParameterSource().addValue("limit", size + 1);
+        String ordering = ViewRepositoryCustom.orderingOf(filter, query, latitude, longitude);
+        String where = whereClause(query, ordering, latitude, longitude, radiusKm, params);
+        if (after != null) {
+            where += keysetCondition(ordering, after, params);
+        }
+        String sortKey = sortKey(ordering);
+        String sql = selectColumns(ordering) + (sortKey != null ? ", CAST(" + sortKey + " AS text) AS sort_key " : "")
+                + where + orderBy(ordering) + "LIMIT :limit";
+
+        List<ViewCard> cards = new ArrayList<>(size + 1);
+        List<String> keys = new ArrayList<>(size + 1);
+        RowMapper<ViewCard> mapper = cardMapper();
+        jdbcTemplate.query(sql, params, rs -> {
+            cards.add(mapper.mapRow(rs, cards.size()));
+            keys.add(sortKey != null ? rs.getString("sort_key") : null);
+        });
+        if (cards.size() <= size) {
+            return new CursorPage<>(cards, null);
+        }
+        ViewCard last = cards.get(size - 1);
+        String next = new PageCursor(ordering, keys.get(size - 1), last.viewId()).encode();
+        return new CursorPage<>(cards.subList(0, size), next);
+    }
+
+    @Override
+    public List<ViewCard> findNearestPublicCards(double latitude, double longitude, int limit) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("latitude", latitude)
+                .addValue("longitude", longitude)
+                .addValue("limit", limit);
+        return jdbcTemplate.query(CARD_COLUMNS + DISTANCE_COLUMN + NEAREST_IDS + orderBy(NEARBY), params,
+                cardMapper());
+    }
+
+    @Override
+    public List<ViewCard> findPublicCardsByIds(Collection<UUID> viewIds) {
+        if (viewIds.isEmpty()) {
+            return List.of();
+        }
+        return jdbcTemplate.query(CARD_COLUMNS + NO_DISTANCE_COLUMN + PUBLIC_FILTER + "AND v.view_id IN (:ids)",
+                new MapSqlParameterSource("ids", viewIds), cardMapper());
+    }
+
+    private static String selectColumns(String ordering) {
+        return CARD_COLUMNS + (NEARBY.equals(ordering) ? DISTANCE_COLUMN : NO_DISTANCE_COLUMN);
+    }
+
+    private static String whereClause(String query, String ordering, Double latitude, Double longitude,
+            double radiusKm, MapSqlParameterSource params) {
+        StringBuilder where = new StringBuilder(PUBLIC_FILTER);
+        // Only the conditions in use go into the SQL, so prepared plans never carry dead OR branches
+        String search = ViewRepositoryCustom.searchTerm(query);
+        if (search != null) {
+            String tsquery = prefixQuery(search);
+            // tsquery is bound even when null: a relevance ordering still refers to it
+            params.addValue("query", search).addValue("tsquery", tsquery);
+            if (tsquery != null) {
+                where.append(SEARCH_FILTER);
+            } else {
+                where.append(SUBSTRING_FILTER);
+            }
+        }
+        if (NEARBY.equals(ordering)) {
+            params.addValue("latitude", latitude).addValue("longitude", longitude).addValue("radius", radiusKm * 1000);
+            where.append(NEARBY_FILTER);
+        }
+        return where.toString();
+    }
+
+    // Every word must match as a prefix, e.g. "new yo" becomes new:* & yo:*
+    private static String prefixQuery(String search) {
+        List<String> terms = new ArrayList<>();
+        for (String word : NON_WORD.split(search)) {
+            if (!word.isEmpty()) {
+                terms.add(word.toLowerCase() + ":*");
+            }
+        }
+        return terms.isEmpty() ? null : String.join(" & ", terms);
+    }
+
+    private static String sortKey(String ordering) {
+        return switch (ordering) {
+            case RECENT -> "v.date_time";
+            case MOST_RATED -> RATING_KEY;
+            case RELEVANCE -> RELEVANCE_KEY;
+            case NEARBY -> DISTANCE_KEY;
+            default -> null;
+        };
+    }
+
+    // Nearest first; every other ordering puts the highest key first
+    private static boolean ascending(String ordering) {
+        return NEARBY.equals(ordering);
+    }
+
+    // Every ordering ends in view_id so rows with equal keys still have a total, stable order
+    private static String orderBy(String ordering) {
+        String key = sortKey(ordering);
+        if (key == null) {
+            return "ORDER BY v.view_id DESC ";
+        }
+        String direction = ascending(ordering) ? "ASC" : "DESC";
+        return "ORDER BY " + key + " " + direction + ", v.view_id " + direction + " ";
+    }
+
+    // Keys travel in Postgres' own text form and are cast back, so they compare exactly.
+    // Row comparisons match the index column order, so the scan starts right after the cursor.
+    private static String keysetCondition(String ordering, PageCursor after, MapSqlParameterSource params) {
+        params.addValue("afterId", after.id());
+        if (sortKey(ordering) == null) {
+            return "AND v.view_id < :afterId ";
+        }
+        if (after.key() == null) {
+            throw new IllegalArgumentException("Malformed cursor");
+        }
+        params.addValue("afterKey", after.key());
+        String type = switch (ordering) {
+            case RECENT -> "timestamp";
+            case RELEVANCE -> "real";
+            default -> "double precision";
+        };
+        return "AND (" + sortKey(ordering) + ", v.view_id) " + (ascending(ordering) ? ">" : "<")
+                + " (CAST(:afterKey AS " + type + "), :afterId) ";
+    }
+
+    private RowMapper<ViewCard> cardMapper() {
+        return (rs, rowNum) -> {
+            Timestamp dateTime = rs.getTimestamp("date_time");
+            return new ViewCard(
+                    rs.getObject("view_id", UUID.class),
+                    rs.getString("view_name"),
+                    rs.getString("description"),
+                    rs.getString("creator_name"),
+                    rs.getString("city_name"),
+                    rs.getString("creator_profile_image_path"),
+                    (Double) rs.getObject("latitude"),
+                    (Double) rs.getObject("longitude"),
+                    rs.getString("thumbnail_image"),
+                    rs.getBoolean("is_public"),
+                    dateTime != null ? dateTime.toLocalDateTime() : null,
+                    rs.getObject("user_id", UUID.class),
+                    (Double) rs.getObject("average_rating"),
+                    rs.getLong("rating_count"),
+                    rs.getLong("version"),
+                    (Double) rs.getObject("distance_km"),
+                    readPanoramas(rs));
+        };
+    }
+
+    private List<PanoramaCard> readPanoramas(ResultSet rs) throws SQLException {
+        String json = rs.getString("panoramas");
+        if (json == null) {
+            return List.of();
+        }
+        try {
+            return objectMapper.readValue(json, PANORAMA_LIST);
+        } catch (JsonProcessingException e) {
+            throw new SQLException("Malformed panorama list for view " + rs.getString("view_id"), e);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.spherelink.service;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+/**
+ * Writes a stored path as the URL clients fetch it from, at serialisation time, so neither
+ * entities nor cached cards are rewritten per request. Put on path properties with
+ * {@code @JsonSerialize(using = AssetUrlSerializer.class)}; Spring's handler instantiator creates
+ * it with the storage backend. Null paths never reach it and stay null.
+ */
+public class AssetUrlSerializer extends StdSerializer<String> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final StorageBackend storageBackend;
+
+    public AssetUrlSerializer(StorageBackend storageBackend) {
+        super(String.class);
+        this.storageBackend = storageBackend;
+    }
+
+    @Override
+    public void serialize(String path, JsonGenerator generator, SerializerProvider provider) throws IOException {
+        generator.writeString(storageBackend.publicUrl(path));
+    }
+}
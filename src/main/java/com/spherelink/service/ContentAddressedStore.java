@@ -0,0 +1,197 @@
+package com.spherelink.service;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import com.spherelink.model.StoredAsset;
+import com.spherelink.repository.StoredAssetRepository;
+
+/**
+ * Deduplicating file store keyed by SHA-256. The first save of some content publishes its temp
+ * file as {@code <hash>-<suffix><ext>}; later saves of the same bytes just bump the reference
+ * count and discard their temp copy. Bytes are removed when the last reference is released.
+ *
+ * Nodes share nothing but the database, so every reference count change is a single conditional
+ * statement on the stored_assets row and no lock is held while bytes travel to the backend. New
+ * content is published under a name of its own before its row is inserted: a row therefore never
+ * points at bytes that are still uploading, and deleting an older copy of the same content (whose
+ * row a concurrent release just removed) can never hit the new one.
+ */
+@Service
+public class ContentAddressedStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(ContentAddressedStore.class);
+
+    private static final String ADD_REFERENCE = "UPDATE stored_assets SET ref_count = ref_count + 1, "
+            + "last_referenced_at = now() WHERE content_hash = :hash RETURNING file_path";
+
+    // A writer that lost the race to a concurrent first write of the same bytes references theirs
+    private static final String INSERT_OR_ADD_REFERENCE = "INSERT INTO stored_assets (content_hash, file_path, "
+            + "size_bytes, ref_count, created_at, last_referenced_at) VALUES (:hash, :filePath, :size, 1, now(), now()) "
+            + "ON CONFLICT (content_hash) DO UPDATE SET ref_count = stored_assets.ref_count + 1, "
+            + "last_referenced_at = now() RETURNING file_path";
+
+    private static final String RELEASE = "UPDATE stored_assets SET ref_count = ref_count - 1 "
+            + "WHERE content_hash = :hash AND ref_count > 0 RETURNING ref_count";
+
+    // Matches nothing if a commit took a new reference after the count reached zero
+    private static final String DELETE_UNREFERENCED = "DELETE FROM stored_assets WHERE content_hash = :hash "
+            + "AND ref_count <= 0 RETURNING file_path";
+
+    // Matches nothing if the content was referenced again since olderThan
+    private static final String EVICT = "DELETE FROM stored_assets WHERE content_hash = :hash "
+            + "AND last_referenced_at < :olderThan RETURNING file_path";
+
+    private final StoredAssetRepository storedAssetRepository;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final StorageBackend storageBackend;
+
+    public ContentAddressedStore(StoredAssetRepository storedAssetRepository, NamedParameterJdbcTemplate jdbcTemplate,
+            ApplicationEventPublisher eventPublisher, StorageBackend storageBackend) {
+        this.storedAssetRepository = storedAssetRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventPublisher = eventPublisher;
+        this.storageBackend = storageBackend;
+    }
+
+    /**
+     * Publishes a fully written and hashed temp file and returns the relative path of the
+     * canonical copy, which is either the temp file moved into place or an existing file with
+     * identical content.
+     */
+    public String commit(Path tempFile, Path targetDir, String relativeDir, String hash, String extension, long size)
+            throws IOException {
+        List<String> existing = jdbcTemplate.queryForList(ADD_REFERENCE, new MapSqlParameterSource("hash", hash),
+                String.class);
+        if (!existing.isEmpty()) {
+            Files.deleteIfExists(tempFile);
+            touch(existing.get(0));
+            logger.info("Deduplicated upload against {}", existing.get(0));
+            return existing.get(0);
+        }
+
+        String filename = hash + "-" + UUID.randomUUID().toString().substring(0, 8) + extension;
+        Path target = targetDir.resolve(filename);
+        try {
+            Files.move(tempFile, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempFile, target);
+        }
+        String relativePath = relativeDir + "/" + filename;
+        try {
+            storageBackend.store(relativePath, target);
+            String committed = jdbcTemplate.queryForObject(INSERT_OR_ADD_REFERENCE, new MapSqlParameterSource()
+                    .addValue("hash", hash)
+                    .addValue("filePath", relativePath)
+                    .addValue("size", size), String.class);
+            if (!relativePath.equals(committed)) {
+                discard(relativePath, target);
+                logger.info("Deduplicated upload against concurrently stored {}", committed);
+                return committed;
+            }
+        } catch (IOException | RuntimeException e) {
+            discard(relativePath, target);
+            throw e;
+        }
+        logger.info("Stored new content {} at {}", hash, relativePath);
+        return relativePath;
+    }
+
+    /**
+     * Drops one reference to the file at the given relative path. Returns false if the path is
+     * not managed by this store, in which case the caller owns the file and deletes it itself.
+     */
+    public boolean release(String relativePath) {
+        Optional<StoredAsset> asset = storedAssetRepository.findByFilePath(relativePath);
+        if (asset.isEmpty()) {
+            return false;
+        }
+        MapSqlParameterSource params = new MapSqlParameterSource("hash", asset.get().getContentHash());
+        List<Integer> remaining = jdbcTemplate.queryForList(RELEASE, params, Integer.class);
+        if (remaining.isEmpty() || remaining.get(0) > 0) {
+            return true;
+        }
+        if (!jdbcTemplate.queryForList(DELETE_UNREFERENCED, params, String.class).isEmpty()) {
+            try {
+                deleteBytes(relativePath);
+                logger.info("Deleted last reference to {}", relativePath);
+            } catch (IOException e) {
+                logger.error("Failed to delete unreferenced file {}: {}", relativePath, e.getMessage());
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Removes a stored file and its row regardless of the reference count, provided it has not
+     * been referenced since olderThan. Used by the orphan sweeper for files no table points at,
+     * whose references were leaked by uploads that failed after committing. Returns the bytes
+     * freed on this node.
+     */
+    public long evict(String relativePath, Instant olderThan) {
+        Optional<StoredAsset> asset = storedAssetRepository.findByFilePath(relativePath);
+        if (asset.isEmpty()) {
+            return 0;
+        }
+        MapSqlParameterSource params = new MapSqlParameterSource("hash", asset.get().getContentHash())
+                .addValue("olderThan", Timestamp.from(olderThan));
+        if (jdbcTemplate.queryForList(EVICT, params, String.class).isEmpty()) {
+            return 0;
+        }
+        Path file = Paths.get(relativePath).toAbsolutePath().normalize();
+        try {
+            long size = Files.exists(file) ? Files.size(file) : 0;
+            deleteBytes(relativePath);
+            logger.info("Evicted unreferenced content {} at {}", asset.get().getContentHash(), relativePath);
+            return size;
+        } catch (IOException e) {
+            logger.error("Failed to evict {}: {}", relativePath, e.getMessage());
+            return 0;
+        }
+    }
+
+    private void deleteBytes(String relativePath) throws IOException {
+        Files.deleteIfExists(Paths.get(relativePath).toAbsolutePath().normalize());
+        storageBackend.remove(relativePath);
+        eventPublisher.publishEvent(new StoredFileDeletedEvent(relativePath));
+    }
+
+    // Bytes published under a name no row points at; nobody else can be using them
+    private void discard(String relativePath, Path localFile) {
+        try {
+            Files.deleteIfExists(localFile);
+            storageBackend.remove(relativePath);
+        } catch (IOException e) {
+            logger.warn("Failed to discard {}: {}", relativePath, e.getMessage());
+        }
+    }
+
+    // A fresh mtime keeps the orphan sweeper's grace period covering a reused file; another node
+    // may hold the only local copy
+    private void touch(String relativePath) {
+        try {
+            Files.setLastModifiedTime(Paths.get(relativePath).toAbsolutePath().normalize(),
+                    FileTime.from(Instant.now()));
+        } catch (IOException e) {
+            logger.debug("No local copy of {} to touch", relativePath);
+        }
+    }
+}
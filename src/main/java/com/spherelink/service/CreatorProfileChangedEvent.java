@@ -0,0 +1,9 @@
+package com.spherelink.service;
+
+import java.util.UUID;
+
+/**
+ * Published after a user's profile picture was copied onto all of their views.
+ */
+public record CreatorProfileChangedEvent(UUID userId) {
+}
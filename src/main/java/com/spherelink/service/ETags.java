@@ -0,0 +1,52 @@
+package com.spherelink.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.stream.Stream;
+
+/**
+ * Strong ETags built from version stamps rather than from the serialised body, so a request can
+ * be answered with 304 before the response is built.
+ */
+public final class ETags {
+
+    private ETags() {
+    }
+
+    /**
+     * Quoted hex digest of the parts in order; nulls count as "null".
+     */
+    public static String of(Stream<?> parts) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        parts.forEach(part -> {
+            digest.update(String.valueOf(part).getBytes(StandardCharsets.UTF_8));
+            // Separator, so ("ab", "c") and ("a", "bc") differ
+            digest.update((byte) 0);
+        });
+        return "\"" + HexFormat.of().formatHex(digest.digest(), 0, 16) + "\"";
+    }
+
+    /**
+     * Whether an If-None-Match header names the ETag. Uses weak comparison, as RFC 9110 asks
+     * for If-None-Match, so a proxy that weakened the tag still gets its 304.
+     */
+    public static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || etag == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || tag.equals(etag) || tag.equals("W/" + etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,188 @@
+package com.spherelink.service;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.spherelink.config.FeedConfig;
+import com.spherelink.dto.PanoramaCard;
+import com.spherelink.dto.ViewCard;
+import com.spherelink.repository.ViewRepositoryCustom;
+import com.spherelink.service.ViewChangedEvent.ViewState;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Size-bounded cache of feed pages (Caffeine, W-TinyLFU eviction), weighed by an estimate of the
+ * heap the cards take. Each entry remembers which views and creators it shows. A change then
+ * evicts only the entries it can affect: lists the view enters or leaves, or moves within, and
+ * pages that display it. Hit, miss and eviction counts are published as cache.* metrics with
+ * cache=feed. Identical misses arriving together are coalesced into one database load.
+ */
+@Service
+public class FeedCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(FeedCache.class);
+
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private record Entry(Object value, Set<UUID> viewIds, Set<UUID> userIds, int weight) {
+    }
+
+    private final FeedConfig.Cache config;
+    private final Cache<FeedCacheKey, Entry> cache;
+    private final SingleFlight<FeedCacheKey, Object> misses;
+
+    // Bumped by every invalidation; a page loaded across one may be stale and is not stored
+    private final AtomicLong generation = new AtomicLong();
+
+    // Held while storing a page and while invalidating, so no store lands between the bump and the eviction
+    private final Object storeLock = new Object();
+
+    public FeedCache(FeedConfig feedConfig, MeterRegistry meterRegistry) {
+        this.config = feedConfig.getCache();
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(config.getMaxSize().toBytes())
+                .weigher((FeedCacheKey key, Entry entry) -> entry.weight())
+                .expireAfterWrite(config.getTtl())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "feed");
+        this.misses = new SingleFlight<>("feed", config.getCoalesceTimeout(), meterRegistry);
+    }
+
+    /**
+     * Returns the cached page for the key or loads and stores it. cards extracts the cards of a
+     * page so the entry knows what it displays.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(FeedCacheKey key, Supplier<T> loader, Function<T, List<ViewCard>> cards) {
+        if (!config.isEnabled()) {
+            return (T) misses.execute(key, loader::get);
+        }
+        Entry cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return (T) cached.value();
+        }
+        // Concurrent misses for one key share a single load, and only that load stores the page
+        return (T) misses.execute(key, () -> {
+            long loadedAt = generation.get();
+            T value = loader.get();
+            Entry loaded = entry(value, cards.apply(value));
+            synchronized (storeLock) {
+                if (generation.get() == loadedAt) {
+                    cache.put(key, loaded);
+                }
+            }
+            return value;
+        });
+    }
+
+    /**
+     * Rounds a coordinate to the configured scale, so nearby requests a few metres apart share
+     * an entry.
+     */
+    public Double roundCoordinate(Double coordinate) {
+        if (coordinate == null) {
+            return null;
+        }
+        double factor = Math.pow(10, config.getCoordinateScale());
+        return Math.round(coordinate * factor) / factor;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onViewChanged(ViewChangedEvent event) {
+        invalidate(entryKey -> affects(entryKey.getKey(), entryKey.getValue(), event));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCreatorProfileChanged(CreatorProfileChangedEvent event) {
+        invalidate(entryKey -> entryKey.getValue().userIds().contains(event.userId()));
+    }
+
+    private void invalidate(Predicate<java.util.Map.Entry<FeedCacheKey, Entry>> affected) {
+        int before = (int) cache.estimatedSize();
+        synchronized (storeLock) {
+            generation.incrementAndGet();
+            cache.asMap().entrySet().removeIf(affected);
+        }
+        logger.debug("Feed cache invalidated {} of {} entries", before - cache.estimatedSize(), before);
+    }
+
+    private static boolean affects(FeedCacheKey key, Entry entry, ViewChangedEvent event) {
+        // Pages showing the view display stale fields (or a deleted view) whatever else happened
+        if (entry.viewIds().contains(event.viewId())) {
+            return true;
+        }
+        ViewState before = event.before();
+        ViewState after = event.after();
+        if (event.change() == ViewChangedEvent.Change.RATED) {
+            // A rating only moves the view within the rating order
+            return ViewRepositoryCustom.MOST_RATED.equals(key.filter()) && matches(key, after);
+        }
+        if (before != null && before.equals(after)) {
+            // Nothing a listing filters or sorts on changed, so only pages showing the view care
+            return false;
+        }
+        // The view entered, left or moved within every list it matches, shifting all of its pages
+        return matches(key, before) || matches(key, after);
+    }
+
+    // Conservative: may say yes for a view the query would not return, never the other way round
+    private static boolean matches(FeedCacheKey key, ViewState state) {
+        if (state == null || !state.isPublic()) {
+            return false;
+        }
+        if (key.query() != null) {
+            String text = state.searchText().toLowerCase(Locale.ROOT);
+            for (String word : NON_WORD.split(key.query())) {
+                if (!word.isEmpty() && !text.contains(word)) {
+                    return false;
+                }
+            }
+        }
+        if (key.isNearby() && state.isLocated()) {
+            double distance = ViewSpatialIndex.haversineKm(key.latitude(), key.longitude(), state.latitude(),
+                    state.longitude());
+            // Slack for the database measuring on a slightly different sphere
+            return distance <= key.radiusKm() * 1.01 + 0.1;
+        }
+        return true;
+    }
+
+    private static Entry entry(Object value, List<ViewCard> cards) {
+        Set<UUID> viewIds = new HashSet<>();
+        Set<UUID> userIds = new HashSet<>();
+        long weight = 256;
+        for (ViewCard card : cards) {
+            viewIds.add(card.viewId());
+            userIds.add(card.userId());
+            weight += 320 + 2L * (length(card.viewName()) + length(card.description()) + length(card.creatorName())
+                    + length(card.cityName()) + length(card.creatorProfileImagePath())
+                    + length(card.thumbnailImagePath()));
+            for (PanoramaCard panorama : card.panoramaImages()) {
+                weight += 96 + 2L * (length(panorama.imageName()) + length(panorama.imagePath()));
+            }
+        }
+        return new Entry(value, viewIds, userIds, (int) Math.min(Integer.MAX_VALUE, weight));
+    }
+
+    private static int length(String value) {
+        return value == null ? 0 : value.length();
+    }
+}
@@ -0,0 +1,14 @@
+package com.spherelink.service;
+
+/**
+ * Identifies one feed response. query is trimmed and lower-cased, since search ignores case.
+ * Coordinates are already rounded, and the page was computed from the rounded values, so every
+ * request that maps to this key gets the same answer. position is the page number or the cursor.
+ */
+public record FeedCacheKey(String mode, String filter, String query, Double latitude, Double longitude,
+        Double radiusKm, String position, int size) {
+
+    public boolean isNearby() {
+        return latitude != null && longitude != null && radiusKm != null;
+    }
+}
@@ -1,16 +1,44 @@
 package com.spherelink.service;
 
+import com.spherelink.config.UploadConfig;
 import com.spherelink.model.FileRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 
 @Service
 public class FileService {
@@ -20,6 +48,29 @@ public class FileService {
     private static final String UPLOAD_BASE_DIR = "Uploads";
     private static final String VIEWS_SUBDIR = "users_views_pics";
     private static final String PROFILE_SUBDIR = "users_profile_pics";
+    private static final String TEMP_PREFIX = ".tmp-";
+
+    private final UploadConfig uploadConfig;
+    private final ContentAddressedStore contentAddressedStore;
+    private final Executor assetWriteExecutor;
+    private final ApplicationEventPublisher eventPublisher;
+    private final StorageBackend storageBackend;
+
+    // Pool of direct buffers shared by all streaming writes; allocated lazily up to streamBufferCount
+    private final BlockingQueue<ByteBuffer> bufferPool;
+    private final AtomicInteger allocatedBuffers = new AtomicInteger();
+    private final Set<Path> knownDirectories = ConcurrentHashMap.newKeySet();
+
+    public FileService(UploadConfig uploadConfig, ContentAddressedStore contentAddressedStore,
+            @Qualifier("assetWriteExecutor") Executor assetWriteExecutor, ApplicationEventPublisher eventPublisher,
+            StorageBackend storageBackend) {
+        this.uploadConfig = uploadConfig;
+        this.contentAddressedStore = contentAddressedStore;
+        this.assetWriteExecutor = assetWriteExecutor;
+        this.eventPublisher = eventPublisher;
+        this.storageBackend = storageBackend;
+        this.bufferPool = new ArrayBlockingQueue<>(uploadConfig.getStreamBufferCount());
+    }
 
     public FileRecord saveFile(MultipartFile file, String prefix, boolean isProfileImage) throws IOException {
         if (file == null || file.isEmpty()) {
@@ -29,24 +80,20 @@ public class FileService {
 
         // Determine subdirectory
         String subDir = isProfileImage ? PROFILE_SUBDIR : VIEWS_SUBDIR;
-        Path uploadPath = Paths.get(UPLOAD_BASE_DIR, subDir).toAbsolutePath().normalize();
 
-        // Create directory if it doesn't exist
-        try {
-            Files.createDirectories(uploadPath);
-            logger.info("Ensured directory exists: {}", uploadPath);
-        } catch (IOException e) {
-            logger.error("Failed to create directory {}: {}", uploadPath, e.getMessage());
-            throw new IOException("Cannot create upload directory: " + uploadPath, e);
+        if (uploadConfig.isContentAddressed()) {
+            try {
+                return storeContentAddressed(file.getInputStream(), file.getOriginalFilename(), subDir);
+            } catch (IOException e) {
+                logger.error("Failed to save file {}: {}", file.getOriginalFilename(), e.getMessage());
+                return null;
+            }
         }
 
         // Generate unique filename
-        String originalFilename = file.getOriginalFilename();
-        String extension = originalFilename != null && originalFilename.contains(".")
-                ? originalFilename.substring(originalFilename.lastIndexOf("."))
-                : ".jpg";
-        String filename = (prefix != null ? prefix : "") + UUID.randomUUID() + extension;
-        Path filePath = uploadPath.resolve(filename);
+        String filename = generateFilename(file.getOriginalFilename(), prefix);
+        String relativeDir = relativeDirFor(subDir, filename);
+        Path filePath = ensureDirectory(relativeDir).resolve(filename);
 
         // Save file
         try {
@@ -60,32 +107,385 @@ public class FileService {
             }
 
             // Return relative path with forward slashes
-            String relativePath = String.join("/", UPLOAD_BASE_DIR, subDir, filename);
+            String relativePath = relativeDir + "/" + filename;
+            storageBackend.store(relativePath, filePath);
             return new FileRecord(filename, relativePath);
         } catch (IOException e) {
             logger.error("Failed to save file {}: {}", filePath, e.getMessage());
+            Files.deleteIfExists(filePath);
             return null;
         }
     }
-    
+
+    /**
+     * Saves several uploads in parallel on the asset write pool and waits for all of them.
+     * Keys are caller-chosen (e.g. form field names) and map to the returned records. If any
+     * write fails, every file that was written is deleted again and the first failure is thrown,
+     * so callers never see a partially persisted batch.
+     */
+    public Map<String, FileRecord> saveFiles(Map<String, MultipartFile> files, Function<String, String> prefixForKey)
+            throws IOException {
+        Map<String, CompletableFuture<FileRecord>> futures = new LinkedHashMap<>();
+        files.forEach((key, file) -> futures.put(key, CompletableFuture.supplyAsync(() -> {
+            try {
+                FileRecord record = saveFile(file, prefixForKey.apply(key), false);
+                if (record == null) {
+                    throw new IOException("Failed to save " + key);
+                }
+                return record;
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }, assetWriteExecutor)));
+
+        try {
+            // allOf only completes once every write has finished, successful or not
+            CompletableFuture.allOf(futures.values().toArray(new CompletableFuture<?>[0])).join();
+        } catch (CompletionException e) {
+            futures.values().stream()
+                    .filter(future -> !future.isCompletedExceptionally())
+                    .forEach(future -> deleteFile(future.join().getFilePath()));
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof IOException ioException) {
+                throw ioException;
+            }
+            throw new IOException("Failed to save uploaded files", cause);
+        }
+
+        Map<String, FileRecord> records = new LinkedHashMap<>();
+        futures.forEach((key, future) -> records.put(key, future.join()));
+        return records;
+    }
+
+    /**
+     * Writes an upload straight from the request stream into its final location. Unlike
+     * {@link #saveFile(MultipartFile, String, boolean)} the bytes are never staged in a temp
+     * file; they are read once and written through a FileChannel using a pooled direct buffer.
+     * On failure the partially written file is removed and the exception is rethrown.
+     */
+    public FileRecord saveStream(InputStream in, String originalFilename, String prefix, boolean isProfileImage)
+            throws IOException {
+        String subDir = isProfileImage ? PROFILE_SUBDIR : VIEWS_SUBDIR;
+
+        if (uploadConfig.isContentAddressed()) {
+            return storeContentAddressed(in, originalFilename, subDir);
+        }
+
+        String filename = generateFilename(originalFilename, prefix);
+        String relativeDir = relativeDirFor(subDir, filename);
+        Path filePath = ensureDirectory(relativeDir).resolve(filename);
+
+        try {
+            long written = writeToChannel(in, filePath, null);
+            if (written == 0) {
+                logger.warn("Received empty stream for {}", originalFilename);
+                Files.deleteIfExists(filePath);
+                return null;
+            }
+            logger.info("Streamed {} bytes to {}", written, filePath);
+            storageBackend.store(relativeDir + "/" + filename, filePath);
+        } catch (IOException | RuntimeException e) {
+            logger.error("Failed to stream file {}: {}", filePath, e.getMessage());
+            Files.deleteIfExists(filePath);
+            throw e;
+        }
+
+        return new FileRecord(filename, relativeDir + "/" + filename);
+    }
+
+    /**
+     * Moves a fully assembled file (e.g. a finished resumable upload) into its final upload
+     * location under a freshly generated name.
+     */
+    public FileRecord importFile(Path source, String originalFilename, String prefix, boolean isProfileImage)
+            throws IOException {
+        String subDir = isProfileImage ? PROFILE_SUBDIR : VIEWS_SUBDIR;
+
+        if (uploadConfig.isContentAddressed()) {
+            String hash = hashFile(source);
+            String extension = extensionOf(originalFilename);
+            String relativeDir = relativeDirFor(subDir, hash + extension);
+            String relativePath = contentAddressedStore.commit(source, ensureDirectory(relativeDir), relativeDir,
+                    hash, extension, Files.size(source));
+            return new FileRecord(relativePath.substring(relativePath.lastIndexOf('/') + 1), relativePath);
+        }
+
+        String filename = generateFilename(originalFilename, prefix);
+        String relativeDir = relativeDirFor(subDir, filename);
+        Path filePath = ensureDirectory(relativeDir).resolve(filename);
+        try {
+            Files.move(source, filePath, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, filePath);
+        }
+        logger.info("Imported {} to {}", source, filePath);
+        storageBackend.store(relativeDir + "/" + filename, filePath);
+
+        return new FileRecord(filename, relativeDir + "/" + filename);
+    }
+
+    /**
+     * Copies a stream into an open channel starting at the given position using positional
+     * writes, so a chunk lands at its offset regardless of the channel's current position.
+     * Every byte written is also fed to the digest when one is given.
+     *
+     * @throws MaxUploadSizeExceededException if the stream holds more than maxBytes
+     */
+    public long writeAt(InputStream in, FileChannel target, long position, long maxBytes, MessageDigest digest)
+            throws IOException {
+        ByteBuffer buffer = acquireBuffer();
+        try {
+            ReadableByteChannel source = Channels.newChannel(in);
+            long written = 0;
+            while (source.read(buffer) >= 0 || buffer.position() > 0) {
+                buffer.flip();
+                if (written + buffer.remaining() > maxBytes) {
+                    throw new MaxUploadSizeExceededException(maxBytes);
+                }
+                if (digest != null) {
+                    digest.update(buffer.duplicate());
+                }
+                while (buffer.hasRemaining()) {
+                    written += target.write(buffer, position + written);
+                }
+                buffer.clear();
+            }
+            return written;
+        } finally {
+            releaseBuffer(buffer);
+        }
+    }
+
+    /**
+     * Directories holding original uploads (not derived tiles or renditions), as absolute paths.
+     */
+    public List<Path> storageRoots() {
+        return List.of(Paths.get(UPLOAD_BASE_DIR, VIEWS_SUBDIR).toAbsolutePath().normalize(),
+                Paths.get(UPLOAD_BASE_DIR, PROFILE_SUBDIR).toAbsolutePath().normalize());
+    }
+
+    /**
+     * Turns an absolute path under Uploads/ back into the relative form stored in the database.
+     */
+    public String toRelativePath(Path file) {
+        Path base = Paths.get(UPLOAD_BASE_DIR).toAbsolutePath().normalize();
+        return UPLOAD_BASE_DIR + "/" + base.relativize(file.toAbsolutePath().normalize()).toString().replace("\\", "/");
+    }
+
+    /**
+     * Resolves a stored relative path (as saved in the DB, e.g. "Uploads/users_views_pics/x.jpg")
+     * to a readable file, or returns null if it does not exist or points outside Uploads/. A
+     * path in one directory layout also finds the file if it has been moved to the other one.
+     * With a remote backend, a file this node does not have is first fetched into Uploads/.
+     */
+    public Path resolveStoredFile(String relativePath) {
+        Path local = resolveLocalFile(relativePath);
+        if (local != null || relativePath == null || relativePath.isBlank() || storageBackend.isLocal()) {
+            return local;
+        }
+        String alternate = StorageLayout.alternateLocation(relativePath);
+        for (String candidate : alternate != null ? List.of(relativePath, alternate) : List.of(relativePath)) {
+            Path target = toUploadPath(candidate);
+            if (target == null) {
+                continue;
+            }
+            try {
+                if (storageBackend.fetch(candidate.replace("\\", "/"), target)) {
+                    return target;
+                }
+            } catch (IOException e) {
+                logger.error("Failed to fetch {}: {}", candidate, e.getMessage());
+                return null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Like {@link #resolveStoredFile(String)}, but only looks at this node's Uploads/ directory.
+     */
+    public Path resolveLocalFile(String relativePath) {
+        if (relativePath == null || relativePath.isBlank()) {
+            return null;
+        }
+        Path candidate = toUploadPath(relativePath);
+        if (candidate != null && Files.isRegularFile(candidate)) {
+            return candidate;
+        }
+        String alternate = StorageLayout.alternateLocation(relativePath);
+        Path fallback = alternate != null ? toUploadPath(alternate) : null;
+        return fallback != null && Files.isRegularFile(fallback) ? fallback : null;
+    }
+
+    /**
+     * Where a flat legacy path lives in the sharded layout, or null if it is already sharded.
+     */
+    public String shardedLocation(String relativePath) {
+        return StorageLayout.toSharded(relativePath);
+    }
+
     public void deleteFile(String filePath) {
         if (filePath == null || filePath.trim().isEmpty()) {
             logger.warn("Attempted to delete null or empty file path");
             return;
         }
 
+        // Content-addressed files may be shared; only the last release removes the bytes
+        if (contentAddressedStore.release(filePath)) {
+            return;
+        }
+
         try {
-            // Convert relative path to absolute
-            String normalizedPath = filePath.replace("/", java.io.File.separator);
-            Path path = Paths.get(normalizedPath).toAbsolutePath().normalize();
+            // Convert relative path to absolute, following a file moved by the shard migration
+            Path resolved = resolveLocalFile(filePath);
+            Path path = resolved != null ? resolved
+                    : Paths.get(filePath.replace("/", java.io.File.separator)).toAbsolutePath().normalize();
             if (Files.exists(path)) {
                 Files.delete(path);
                 logger.info("Deleted file: {}", path);
+                eventPublisher.publishEvent(new StoredFileDeletedEvent(filePath));
             } else {
                 logger.warn("File does not exist: {}", path);
             }
+            // The remote copy may exist even when this node never had the file locally
+            storageBackend.remove(filePath.replace("\\", "/"));
         } catch (IOException e) {
             logger.error("Failed to delete file {}: {}", filePath, e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    // Relative directory a file with this name is stored in: Uploads/<subDir>[/aa/bb]
+    private String relativeDirFor(String subDir, String filename) {
+        String dir = UPLOAD_BASE_DIR + "/" + subDir;
+        return uploadConfig.isShardedLayout() ? dir + "/" + StorageLayout.shardOf(filename) : dir;
+    }
+
+    private Path ensureDirectory(String relativeDir) throws IOException {
+        Path uploadPath = Paths.get(relativeDir).toAbsolutePath().normalize();
+        // Directories are only ever created, so one successful check per directory is enough
+        if (knownDirectories.contains(uploadPath)) {
+            return uploadPath;
+        }
+
+        // Create directory if it doesn't exist
+        try {
+            Files.createDirectories(uploadPath);
+            logger.info("Ensured directory exists: {}", uploadPath);
+        } catch (IOException e) {
+            logger.error("Failed to create directory {}: {}", uploadPath, e.getMessage());
+            throw new IOException("Cannot create upload directory: " + uploadPath, e);
+        }
+        knownDirectories.add(uploadPath);
+        return uploadPath;
+    }
+
+    private Path toUploadPath(String relativePath) {
+        Path base = Paths.get(UPLOAD_BASE_DIR).toAbsolutePath().normalize();
+        Path candidate = Paths.get(relativePath.replace("/", java.io.File.separator)).toAbsolutePath().normalize();
+        if (!candidate.startsWith(base) || candidate.getFileName().toString().startsWith(".")) {
+            return null;
+        }
+        return candidate;
+    }
+
+    private String generateFilename(String originalFilename, String prefix) {
+        return (prefix != null ? prefix : "") + UUID.randomUUID() + extensionOf(originalFilename);
+    }
+
+    private String extensionOf(String originalFilename) {
+        return originalFilename != null && originalFilename.contains(".")
+                ? originalFilename.substring(originalFilename.lastIndexOf("."))
+                : ".jpg";
+    }
+
+    // Streams into a temp file while hashing, then lets the store keep it or fold it into an identical file
+    private FileRecord storeContentAddressed(InputStream in, String originalFilename, String subDir)
+            throws IOException {
+        Path tempFile = ensureDirectory(UPLOAD_BASE_DIR + "/" + subDir).resolve(TEMP_PREFIX + UUID.randomUUID());
+        MessageDigest digest = newSha256();
+        try {
+            long size = writeToChannel(in, tempFile, digest);
+            if (size == 0) {
+                logger.warn("Received empty stream for {}", originalFilename);
+                Files.deleteIfExists(tempFile);
+                return null;
+            }
+            String hash = HexFormat.of().formatHex(digest.digest());
+            String extension = extensionOf(originalFilename);
+            String relativeDir = relativeDirFor(subDir, hash + extension);
+            String relativePath = contentAddressedStore.commit(tempFile, ensureDirectory(relativeDir), relativeDir,
+                    hash, extension, size);
+            return new FileRecord(relativePath.substring(relativePath.lastIndexOf('/') + 1), relativePath);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tempFile);
+            throw e;
+        }
+    }
+
+    private String hashFile(Path file) throws IOException {
+        MessageDigest digest = newSha256();
+        ByteBuffer buffer = acquireBuffer();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (channel.read(buffer) >= 0) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        } finally {
+            releaseBuffer(buffer);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private long writeToChannel(InputStream in, Path filePath, MessageDigest digest) throws IOException {
+        ByteBuffer buffer = acquireBuffer();
+        try (ReadableByteChannel source = Channels.newChannel(in);
+             FileChannel target = FileChannel.open(filePath, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            long written = 0;
+            while (source.read(buffer) >= 0) {
+                buffer.flip();
+                if (digest != null) {
+                    digest.update(buffer.duplicate());
+                }
+                while (buffer.hasRemaining()) {
+                    written += target.write(buffer);
+                }
+                buffer.clear();
+            }
+            return written;
+        } finally {
+            releaseBuffer(buffer);
+        }
+    }
+
+    private ByteBuffer acquireBuffer() throws IOException {
+        ByteBuffer buffer = bufferPool.poll();
+        if (buffer != null) {
+            return buffer;
+        }
+        if (allocatedBuffers.incrementAndGet() <= uploadConfig.getStreamBufferCount()) {
+            return ByteBuffer.allocateDirect(uploadConfig.getStreamBufferSize());
+        }
+        allocatedBuffers.decrementAndGet();
+        try {
+            // All buffers are in use; wait for one rather than growing off-heap memory
+            return bufferPool.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for an upload buffer");
+        }
+    }
+
+    private void releaseBuffer(ByteBuffer buffer) {
+        buffer.clear();
+        bufferPool.offer(buffer);
+    }
+}
@@ -0,0 +1,45 @@
+package com.spherelink.service;
+
+import java.nio.file.Path;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+/**
+ * The default backend: files stay in the local Uploads/ directory and are served by this
+ * application under app.base-url.
+ */
+@Service
+@ConditionalOnProperty(name = "app.storage.backend", havingValue = "local", matchIfMissing = true)
+public class LocalStorageBackend implements StorageBackend {
+
+    @Value("${app.base-url}")
+    private String baseUrl;
+
+    @Override
+    public void store(String relativePath, Path localFile) {
+        // Already in place
+    }
+
+    @Override
+    public void remove(String relativePath) {
+        // FileService deletes the local file itself
+    }
+
+    @Override
+    public boolean fetch(String relativePath, Path localFile) {
+        // The local file is the only copy
+        return false;
+    }
+
+    @Override
+    public boolean isLocal() {
+        return true;
+    }
+
+    @Override
+    public String objectUrl(String relativePath) {
+        return baseUrl + "/" + relativePath;
+    }
+}
@@ -0,0 +1,426 @@
+package com.spherelink.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.spherelink.config.FeedConfig;
+import com.spherelink.dto.MapCluster;
+
+/**
+ * Hierarchical clusters of public views for the map, one level per zoom, in the manner of
+ * supercluster. Points are projected to Web Mercator. Starting from the deepest zoom, each level
+ * greedily merges the clusters of the level below that lie within a fixed pixel radius, so a
+ * request only looks up a precomputed level in the blocks its viewport covers.
+ *
+ * Levels are rebuilt incrementally. Every level is split into square blocks of BLOCK_RADII cluster
+ * radii, aligned so each block is exactly four blocks of the level below, and clusters are only
+ * merged within a block. A change therefore touches one block per level: its block of points is
+ * re-read, and each level re-clusters just the parent of a block that changed. The price is that
+ * two clusters either side of a block edge stay apart at that level, which with blocks this much
+ * larger than the radius affects few pins and only until a coarser zoom merges them.
+ *
+ * The point set follows ViewChangedEvent as it happens. Changed blocks are re-clustered off the
+ * request path, at most once per app.feed.map-clusters.rebuild-interval; each block is replaced
+ * as one immutable value.
+ */
+@Service
+public class MapClusterService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MapClusterService.class);
+
+    private static final String POINT_QUERY = "SELECT view_id, latitude, longitude, thumbnail_image, "
+            + "COALESCE(average_rating, 0) AS rating FROM views WHERE is_public = true";
+
+    // Tile size the pixel radius refers to
+    private static final int EXTENT = 512;
+
+    // Block edge in cluster radii of its level
+    private static final int BLOCK_RADII = 128;
+
+    // Bound on pins per response, for a viewport zoomed far in but stretched over the whole world
+    private static final int MAX_CLUSTERS = 10_000;
+
+    private record Point(UUID viewId, double x, double y, String thumbnailImagePath, double rating) {
+    }
+
+    // Clusters of one block of one level, in parallel arrays
+    private record Block(double[] x, double[] y, int[] count, Point[] representative) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int maxZoom;
+    private final int radiusPixels;
+
+    private final Map<UUID, Point> points = new HashMap<>();
+    private final Map<Long, Map<UUID, Point>> pointsByBlock = new HashMap<>();
+    private final Set<Long> dirtyBlocks = new HashSet<>();
+
+    // levels[z] maps block keys to blocks; levels[maxZoom + 1] holds the unclustered points
+    private final List<Map<Long, Block>> levels = new ArrayList<>();
+    private volatile boolean ready;
+
+    public MapClusterService(JdbcTemplate jdbcTemplate, FeedConfig feedConfig) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.maxZoom = feedConfig.getMapClusters().getMaxZoom();
+        this.radiusPixels = feedConfig.getMapClusters().getRadiusPixels();
+        for (int zoom = 0; zoom <= maxZoom + 1; zoom++) {
+            levels.add(new ConcurrentHashMap<>());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long startedAt = System.currentTimeMillis();
+        jdbcTemplate.query(POINT_QUERY, rs -> {
+            UUID viewId = rs.getObject("view_id", UUID.class);
+            put(viewId, toPoint(viewId, rs.getDouble("latitude"), rs.getDouble("longitude"),
+                    rs.getString("thumbnail_image"), rs.getDouble("rating")));
+        });
+        int blocks = rebuildDirty();
+        ready = true;
+        logger.info("Map clusters built for {} views ({} blocks) in {} ms", points.size(), blocks,
+                System.currentTimeMillis() - startedAt);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onViewChanged(ViewChangedEvent event) {
+        Point[] current = new Point[1];
+        if (event.isPublicAfter()) {
+            // The event carries no thumbnail or rating, so the row is read back once
+            jdbcTemplate.query(POINT_QUERY + " AND view_id = ?", rs -> {
+                current[0] = toPoint(event.viewId(), rs.getDouble("latitude"), rs.getDouble("longitude"),
+                        rs.getString("thumbnail_image"), rs.getDouble("rating"));
+            }, event.viewId());
+        }
+        put(event.viewId(), current[0]);
+    }
+
+    @Scheduled(fixedDelayString = "${app.feed.map-clusters.rebuild-interval:PT10S}")
+    public void rebuildIfChanged() {
+        if (ready) {
+            rebuildDirty();
+        }
+    }
+
+    /**
+     * Pins inside the bounding box at a zoom level, or null while the first build is still
+     * running. A box with west greater than east crosses the antimeridian.
+     */
+    public List<MapCluster> clusters(double west, double south, double east, double north, int zoom) {
+        if (!ready) {
+            return null;
+        }
+        int z = Math.max(0, Math.min(zoom, maxZoom + 1));
+        double top = mercatorY(north);
+        double bottom = mercatorY(south);
+        List<MapCluster> result = new ArrayList<>();
+        if (west <= east) {
+            collect(z, mercatorX(west), top, mercatorX(east), bottom, result);
+        } else {
+            collect(z, mercatorX(west), top, 1, bottom, result);
+            collect(z, 0, top, mercatorX(east), bottom, result);
+        }
+        return result;
+    }
+
+    // Records a view's point (null when it is gone or private) and marks the blocks it left and entered
+    private synchronized void put(UUID viewId, Point point) {
+        Point previous = point != null ? points.put(viewId, point) : points.remove(viewId);
+        if (point != null && point.equals(previous)) {
+            // e.g. a rating that did not move the average
+            return;
+        }
+        double blockSize = blockSize(maxZoom + 1);
+        if (previous != null) {
+            long key = blockKey(previous.x(), previous.y(), blockSize);
+            Map<UUID, Point> block = pointsByBlock.get(key);
+            if (block != null) {
+                block.remove(viewId);
+                if (block.isEmpty()) {
+                    pointsByBlock.remove(key);
+                }
+            }
+            dirtyBlocks.add(key);
+        }
+        if (point != null) {
+            long key = blockKey(point.x(), point.y(), blockSize);
+            pointsByBlock.computeIfAbsent(key, k -> new HashMap<>()).put(viewId, point);
+            dirtyBlocks.add(key);
+        }
+    }
+
+    // Re-clusters the dirty point blocks and their ancestors, level by level; returns blocks rebuilt
+    private synchronized int rebuildDirty() {
+        if (dirtyBlocks.isEmpty()) {
+            return 0;
+        }
+        int rebuilt = 0;
+        Set<Long> dirty = new HashSet<>(dirtyBlocks);
+        dirtyBlocks.clear();
+
+        Map<Long, Block> pointLevel = levels.get(maxZoom + 1);
+        for (long key : dirty) {
+            Map<UUID, Point> members = pointsByBlock.get(key);
+            if (members == null) {
+                pointLevel.remove(key);
+            } else {
+                pointLevel.put(key, pointBlock(members.values().toArray(new Point[0])));
+            }
+            rebuilt++;
+        }
+
+        for (int zoom = maxZoom; zoom >= 0; zoom--) {
+            Set<Long> parents = new HashSet<>();
+            dirty.forEach(key -> parents.add(parentKey(key)));
+            Map<Long, Block> below = levels.get(zoom + 1);
+            Map<Long, Block> level = levels.get(zoom);
+            double radius = radius(zoom);
+            for (long key : parents) {
+                Block block = clusterChildren(below, key, radius);
+                if (block == null) {
+                    level.remove(key);
+                } else {
+                    level.put(key, block);
+                }
+                rebuilt++;
+            }
+            dirty = parents;
+        }
+        return rebuilt;
+    }
+
+    private static Block pointBlock(Point[] members) {
+        int n = members.length;
+        double[] x = new double[n];
+        double[] y = new double[n];
+        int[] count = new int[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = members[i].x();
+            y[i] = members[i].y();
+            count[i] = 1;
+        }
+        return new Block(x, y, count, members);
+    }
+
+    // Greedy pass over the clusters of the four child blocks: each unvisited cluster absorbs every
+    // unvisited neighbour within the radius. Null when the children are all empty.
+    private static Block clusterChildren(Map<Long, Block> below, long parentKey, double radius) {
+        List<Block> children = new ArrayList<>(4);
+        int n = 0;
+        for (long child : childKeys(parentKey)) {
+            Block block = below.get(child);
+            if (block != null) {
+                children.add(block);
+                n += block.x().length;
+            }
+        }
+        if (n == 0) {
+            return null;
+        }
+
+        double[] bx = new double[n];
+        double[] by = new double[n];
+        int[] bcount = new int[n];
+        Point[] brep = new Point[n];
+        int offset = 0;
+        for (Block block : children) {
+            int length = block.x().length;
+            System.arraycopy(block.x(), 0, bx, offset, length);
+            System.arraycopy(block.y(), 0, by, offset, length);
+            System.arraycopy(block.count(), 0, bcount, offset, length);
+            System.arraycopy(block.representative(), 0, brep, offset, length);
+            offset += length;
+        }
+
+        double[] x = new double[n];
+        double[] y = new double[n];
+        int[] count = new int[n];
+        Point[] representative = new Point[n];
+        boolean[] visited = new boolean[n];
+        double radiusSquared = radius * radius;
+        int size = 0;
+
+        Map<Long, int[]> grid = grid(bx, by, n, radius);
+        for (int i = 0; i < n; i++) {
+            if (visited[i]) {
+                continue;
+            }
+            visited[i] = true;
+            double weightedX = bx[i] * bcount[i];
+            double weightedY = by[i] * bcount[i];
+            int total = bcount[i];
+            Point best = brep[i];
+
+            long cx = cell(bx[i], radius);
+            long cy = cell(by[i], radius);
+            for (long gx = cx - 1; gx <= cx + 1; gx++) {
+                for (long gy = cy - 1; gy <= cy + 1; gy++) {
+                    int[] members = grid.get(cellKey(gx, gy));
+                    if (members == null) {
+                        continue;
+                    }
+                    for (int j : members) {
+                        if (visited[j]) {
+                            continue;
+                        }
+                        double dx = bx[j] - bx[i];
+                        double dy = by[j] - by[i];
+                        if (dx * dx + dy * dy > radiusSquared) {
+                            continue;
+                        }
+                        visited[j] = true;
+                        weightedX += bx[j] * bcount[j];
+                        weightedY += by[j] * bcount[j];
+                        total += bcount[j];
+                        if (better(brep[j], best)) {
+                            best = brep[j];
+                        }
+                    }
+                }
+            }
+            x[size] = weightedX / total;
+            y[size] = weightedY / total;
+            count[size] = total;
+            representative[size] = best;
+            size++;
+        }
+        return new Block(Arrays.copyOf(x, size), Arrays.copyOf(y, size), Arrays.copyOf(count, size),
+                Arrays.copyOf(representative, size));
+    }
+
+    private static Map<Long, int[]> grid(double[] x, double[] y, int size, double cellSize) {
+        Map<Long, int[]> fill = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            fill.computeIfAbsent(cellKey(cell(x[i], cellSize), cell(y[i], cellSize)), k -> new int[1])[0]++;
+        }
+        Map<Long, int[]> grid = new HashMap<>(fill.size() * 2);
+        fill.forEach((key, counter) -> {
+            grid.put(key, new int[counter[0]]);
+            counter[0] = 0;
+        });
+        for (int i = 0; i < size; i++) {
+            long key = cellKey(cell(x[i], cellSize), cell(y[i], cellSize));
+            grid.get(key)[fill.get(key)[0]++] = i;
+        }
+        return grid;
+    }
+
+    private void collect(int zoom, double left, double top, double right, double bottom, List<MapCluster> result) {
+        Map<Long, Block> level = levels.get(zoom);
+        double blockSize = blockSize(zoom);
+        long fromX = cell(left, blockSize);
+        long toX = cell(right, blockSize);
+        long fromY = cell(top, blockSize);
+        long toY = cell(bottom, blockSize);
+        // A huge viewport at a deep zoom spans more blocks than exist; then scanning the blocks is cheaper
+        if ((toX - fromX + 1) * (toY - fromY + 1) > level.size()) {
+            for (Block block : level.values()) {
+                addInside(block, left, top, right, bottom, result);
+            }
+            return;
+        }
+        for (long gx = fromX; gx <= toX; gx++) {
+            for (long gy = fromY; gy <= toY; gy++) {
+                Block block = level.get(cellKey(gx, gy));
+                if (block != null) {
+                    addInside(block, left, top, right, bottom, result);
+                }
+            }
+        }
+    }
+
+    private static void addInside(Block block, double left, double top, double right, double bottom,
+            List<MapCluster> result) {
+        for (int i = 0; i < block.x().length; i++) {
+            if (result.size() >= MAX_CLUSTERS) {
+                return;
+            }
+            double x = block.x()[i];
+            double y = block.y()[i];
+            if (x < left || x > right || y < top || y > bottom) {
+                continue;
+            }
+            Point representative = block.representative()[i];
+            result.add(new MapCluster(latitude(y), longitude(x), block.count()[i], representative.viewId(),
+                    representative.thumbnailImagePath()));
+        }
+    }
+
+    // Best-rated view represents the cluster; the id breaks ties so rebuilds pick the same one
+    private static boolean better(Point candidate, Point current) {
+        int byRating = Double.compare(candidate.rating(), current.rating());
+        return byRating > 0 || (byRating == 0 && candidate.viewId().compareTo(current.viewId()) < 0);
+    }
+
+    private double radius(int zoom) {
+        return radiusPixels / (EXTENT * Math.pow(2, zoom));
+    }
+
+    // Halves exactly from one zoom to the next, so block (x, y) is blocks (2x..2x+1, 2y..2y+1) below
+    private double blockSize(int zoom) {
+        return BLOCK_RADII * radius(zoom);
+    }
+
+    private static Point toPoint(UUID viewId, double latitude, double longitude, String thumbnailImagePath,
+            double rating) {
+        return new Point(viewId, mercatorX(longitude), mercatorY(latitude), thumbnailImagePath, rating);
+    }
+
+    private static long blockKey(double x, double y, double blockSize) {
+        return cellKey(cell(x, blockSize), cell(y, blockSize));
+    }
+
+    private static long parentKey(long key) {
+        return cellKey(Math.floorDiv(key >> 32, 2), Math.floorDiv((long) (int) key, 2));
+    }
+
+    private static long[] childKeys(long key) {
+        long cx = key >> 32;
+        long cy = (int) key;
+        return new long[] { cellKey(2 * cx, 2 * cy), cellKey(2 * cx + 1, 2 * cy), cellKey(2 * cx, 2 * cy + 1),
+                cellKey(2 * cx + 1, 2 * cy + 1) };
+    }
+
+    private static long cell(double value, double cellSize) {
+        return (long) Math.floor(value / cellSize);
+    }
+
+    private static long cellKey(long cx, long cy) {
+        return (cx << 32) | (cy & 0xffffffffL);
+    }
+
+    private static double mercatorX(double longitude) {
+        return longitude / 360 + 0.5;
+    }
+
+    private static double mercatorY(double latitude) {
+        double sin = Math.sin(Math.toRadians(latitude));
+        double y = 0.5 - 0.25 * Math.log((1 + sin) / (1 - sin)) / Math.PI;
+        return Math.min(1, Math.max(0, y));
+    }
+
+    private static double longitude(double x) {
+        return (x - 0.5) * 360;
+    }
+
+    private static double latitude(double y) {
+        double y2 = (180 - y * 360) * Math.PI / 180;
+        return 360 * Math.atan(Math.exp(y2)) / Math.PI - 90;
+    }
+}
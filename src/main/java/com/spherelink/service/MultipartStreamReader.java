@@ -0,0 +1,299 @@
+package com.spherelink.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+
+/**
+ * Minimal forward-only reader for multipart/form-data request bodies. Parts are exposed in the
+ * order they arrive and each part body can be consumed exactly once as a stream, so callers can
+ * route file parts directly to their destination without the container buffering them first.
+ */
+public class MultipartStreamReader {
+
+    private static final int MAX_HEADER_LINE = 8 * 1024;
+
+    private final InputStream in;
+    private final byte[] delimiter;
+    private final byte[] buffer;
+    private final long maxBytes;
+
+    private int head;
+    private int tail;
+    private long bytesRead;
+    private boolean eof;
+    private boolean finished;
+    // The preamble before the first boundary is consumed as if it were a part body
+    private boolean inPart = true;
+    private byte[] skipBuffer;
+
+    public MultipartStreamReader(InputStream in, String boundary, int bufferSize, long maxBytes) {
+        this.in = in;
+        this.delimiter = ("\r\n--" + boundary).getBytes(StandardCharsets.ISO_8859_1);
+        this.buffer = new byte[Math.max(bufferSize, delimiter.length * 2 + MAX_HEADER_LINE)];
+        this.maxBytes = maxBytes;
+        // Seed with CRLF so the opening boundary matches the same delimiter as all later ones
+        buffer[0] = '\r';
+        buffer[1] = '\n';
+        tail = 2;
+    }
+
+    /**
+     * Extracts the boundary parameter from a multipart Content-Type header, or returns null.
+     */
+    public static String extractBoundary(String contentType) {
+        if (contentType == null || !contentType.toLowerCase(Locale.ROOT).startsWith("multipart/")) {
+            return null;
+        }
+        String value = headerParameter(contentType, "boundary");
+        return value == null || value.isEmpty() ? null : value;
+    }
+
+    /**
+     * Advances to the next part, skipping any unread body of the current one.
+     * Returns null once the closing boundary has been read.
+     */
+    public Part nextPart() throws IOException {
+        if (finished) {
+            return null;
+        }
+        if (inPart) {
+            skipBody();
+        }
+        if (!ensure(2)) {
+            throw new IOException("Malformed multipart stream: unexpected end after boundary");
+        }
+        if (buffer[head] == '-' && buffer[head + 1] == '-') {
+            finished = true;
+            return null;
+        }
+        // Remainder of the boundary line (normally empty)
+        readLine();
+
+        String disposition = null;
+        String contentType = null;
+        String line;
+        while (!(line = readLine()).isEmpty()) {
+            int colon = line.indexOf(':');
+            if (colon <= 0) {
+                continue;
+            }
+            String headerName = line.substring(0, colon).trim();
+            String headerValue = line.substring(colon + 1).trim();
+            if ("Content-Disposition".equalsIgnoreCase(headerName)) {
+                disposition = headerValue;
+            } else if ("Content-Type".equalsIgnoreCase(headerName)) {
+                contentType = headerValue;
+            }
+        }
+        if (disposition == null) {
+            throw new IOException("Malformed multipart stream: part without Content-Disposition");
+        }
+
+        inPart = true;
+        return new Part(headerParameter(disposition, "name"), headerParameter(disposition, "filename"), contentType);
+    }
+
+    /**
+     * Reads the current part body as a UTF-8 string. Intended for form fields, not files.
+     */
+    public String readString() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] chunk = new byte[4096];
+        int n;
+        while ((n = readBody(chunk, 0, chunk.length)) != -1) {
+            out.write(chunk, 0, n);
+        }
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns a stream over the current part body that ends at the next boundary.
+     */
+    public InputStream openStream() {
+        return new PartInputStream();
+    }
+
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    private int readBody(byte[] dst, int off, int len) throws IOException {
+        if (!inPart) {
+            return -1;
+        }
+        ensure(delimiter.length);
+        int match = indexOfDelimiter();
+        int available;
+        if (match == head) {
+            head += delimiter.length;
+            inPart = false;
+            return -1;
+        } else if (match >= 0) {
+            available = match - head;
+        } else {
+            // Hold back enough bytes to recognise a delimiter split across reads
+            available = tail - head - (delimiter.length - 1);
+            if (available <= 0) {
+                throw new IOException("Malformed multipart stream: missing closing boundary");
+            }
+        }
+        int count = Math.min(available, len);
+        System.arraycopy(buffer, head, dst, off, count);
+        head += count;
+        return count;
+    }
+
+    private void skipBody() throws IOException {
+        if (skipBuffer == null) {
+            skipBuffer = new byte[8192];
+        }
+        while (readBody(skipBuffer, 0, skipBuffer.length) != -1) {
+            // discard
+        }
+    }
+
+    private int indexOfDelimiter() {
+        byte first = delimiter[0];
+        int last = tail - delimiter.length;
+        outer:
+        for (int i = head; i <= last; i++) {
+            if (buffer[i] != first) {
+                continue;
+            }
+            for (int j = 1; j < delimiter.length; j++) {
+                if (buffer[i + j] != delimiter[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    private String readLine() throws IOException {
+        while (true) {
+            for (int i = head; i < tail - 1; i++) {
+                if (buffer[i] == '\r' && buffer[i + 1] == '\n') {
+                    String line = new String(buffer, head, i - head, StandardCharsets.UTF_8);
+                    head = i + 2;
+                    return line;
+                }
+            }
+            if (tail - head >= MAX_HEADER_LINE) {
+                throw new IOException("Malformed multipart stream: header line too long");
+            }
+            int before = tail - head;
+            fill();
+            if (tail - head == before && eof) {
+                throw new IOException("Malformed multipart stream: unexpected end of headers");
+            }
+        }
+    }
+
+    private boolean ensure(int count) throws IOException {
+        while (tail - head < count && !eof) {
+            fill();
+        }
+        return tail - head >= count;
+    }
+
+    private void fill() throws IOException {
+        if (head > 0) {
+            System.arraycopy(buffer, head, buffer, 0, tail - head);
+            tail -= head;
+            head = 0;
+        }
+        if (tail == buffer.length) {
+            return;
+        }
+        int read = in.read(buffer, tail, buffer.length - tail);
+        if (read == -1) {
+            eof = true;
+            return;
+        }
+        tail += read;
+        bytesRead += read;
+        if (maxBytes > 0 && bytesRead > maxBytes) {
+            throw new MaxUploadSizeExceededException(maxBytes);
+        }
+    }
+
+    private static String headerParameter(String header, String name) {
+        int i = 0;
+        int length = header.length();
+        while (i < length) {
+            int semicolon = header.indexOf(';', i);
+            if (semicolon < 0) {
+                return null;
+            }
+            i = semicolon + 1;
+            while (i < length && header.charAt(i) == ' ') {
+                i++;
+            }
+            int equals = header.indexOf('=', i);
+            if (equals < 0) {
+                return null;
+            }
+            String key = header.substring(i, equals).trim();
+            i = equals + 1;
+            String value;
+            if (i < length && header.charAt(i) == '"') {
+                StringBuilder quoted = new StringBuilder();
+                i++;
+                while (i < length && header.charAt(i) != '"') {
+                    char c = header.charAt(i);
+                    if (c == '\\' && i + 1 < length) {
+                        c = header.charAt(++i);
+                    }
+                    quoted.append(c);
+                    i++;
+                }
+                i++;
+                value = quoted.toString();
+            } else {
+                int end = header.indexOf(';', i);
+                value = header.substring(i, end < 0 ? length : end).trim();
+                i = end < 0 ? length : end;
+            }
+            if (key.equalsIgnoreCase(name)) {
+                return value;
+            }
+        }
+        return null;
+    }
+
+    public record Part(String name, String filename, String contentType) {
+
+        public boolean isFile() {
+            return filename != null;
+        }
+    }
+
+    private class PartInputStream extends InputStream {
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            int n = read(single, 0, 1);
+            return n == -1 ? -1 : single[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            return readBody(b, off, len);
+        }
+
+        @Override
+        public void close() {
+            // The enclosing reader owns the request stream; remaining bytes are skipped by nextPart()
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package com.spherelink.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.spherelink.config.SweeperConfig;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+/**
+ * Deletes uploads that no table references, e.g. files written by a view upload that failed
+ * before its row was saved, or old images whose delete failed during an update. Each run takes
+ * the next batch from a directory walk that resumes where the previous run stopped, and checks
+ * the whole batch with one IN-list query against the indexed path columns, so the cost per run
+ * is bounded no matter how large Uploads/ grows. Derived files (tiles, renditions) are not
+ * walked; they are removed together with their source.
+ */
+@Service
+public class OrphanSweeper {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrphanSweeper.class);
+
+    private static final String REFERENCED_PATHS_QUERY =
+            "SELECT thumbnail_image FROM views WHERE thumbnail_image IN (:paths) "
+            + "UNION SELECT creator_profile_image_path FROM views WHERE creator_profile_image_path IN (:paths) "
+            + "UNION SELECT image_path FROM panorama_images WHERE image_path IN (:paths) "
+            + "UNION SELECT image_path FROM marker_banner_images WHERE image_path IN (:paths) "
+            + "UNION SELECT profile_image_path FROM users WHERE profile_image_path IN (:paths) "
+            + "UNION SELECT file_path FROM file_records WHERE file_path IN (:paths)";
+
+    private static final String CONTENT_ADDRESSED_PATHS_QUERY =
+            "SELECT file_path FROM stored_assets WHERE file_path IN (:paths)";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final FileService fileService;
+    private final ContentAddressedStore contentAddressedStore;
+    private final SweeperConfig sweeperConfig;
+    private final Counter reclaimedBytes;
+    private final Counter deletedFiles;
+    private final Counter scannedFiles;
+
+    // Position in the current pass; one walk per storage root, consumed in order
+    private final List<Path> pendingRoots = new ArrayList<>();
+    private Stream<Path> walk;
+    private Iterator<Path> cursor;
+
+    public OrphanSweeper(FileService fileService, ContentAddressedStore contentAddressedStore,
+            SweeperConfig sweeperConfig, MeterRegistry meterRegistry) {
+        this.fileService = fileService;
+        this.contentAddressedStore = contentAddressedStore;
+        this.sweeperConfig = sweeperConfig;
+        this.reclaimedBytes = Counter.builder("spherelink.sweeper.reclaimed")
+                .baseUnit("bytes")
+                .description("Bytes freed by deleting orphaned uploads")
+                .register(meterRegistry);
+        this.deletedFiles = Counter.builder("spherelink.sweeper.deleted")
+                .baseUnit("files")
+                .description("Orphaned uploads deleted")
+                .register(meterRegistry);
+        this.scannedFiles = Counter.builder("spherelink.sweeper.scanned")
+                .baseUnit("files")
+                .description("Uploads checked for references")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${app.sweeper.interval:PT5M}", initialDelayString = "${app.sweeper.interval:PT5M}")
+    public synchronized void sweep() {
+        if (!sweeperConfig.isEnabled()) {
+            return;
+        }
+        try {
+            Instant cutoff = Instant.now().minus(sweeperConfig.getGracePeriod());
+            Map<String, Path> candidates = nextBatch(cutoff);
+            if (candidates.isEmpty()) {
+                return;
+            }
+
+            Set<String> referenced = queryPaths(REFERENCED_PATHS_QUERY, candidates.keySet());
+            Set<String> contentAddressed = queryPaths(CONTENT_ADDRESSED_PATHS_QUERY, candidates.keySet());
+
+            long freed = 0;
+            int deleted = 0;
+            for (Map.Entry<String, Path> candidate : candidates.entrySet()) {
+                String relativePath = candidate.getKey();
+                // A row may still hold the file's path in the other layout, e.g. while the shard
+                // migration is between moving a file and rewriting its rows
+                String alternate = StorageLayout.alternateLocation(relativePath);
+                if (referenced.contains(relativePath) || (alternate != null && referenced.contains(alternate))) {
+                    continue;
+                }
+                if (sweeperConfig.isDryRun()) {
+                    logger.info("Sweeper (dry run) would delete orphan {}", relativePath);
+                    continue;
+                }
+                long size = contentAddressed.contains(relativePath)
+                        ? contentAddressedStore.evict(relativePath, cutoff)
+                        : deleteOrphan(relativePath, candidate.getValue());
+                if (size > 0) {
+                    freed += size;
+                    deleted++;
+                }
+            }
+            reclaimedBytes.increment(freed);
+            deletedFiles.increment(deleted);
+            if (deleted > 0) {
+                logger.info("Sweeper deleted {} orphaned files ({} bytes) out of {} checked", deleted, freed,
+                        candidates.size());
+            }
+        } catch (RuntimeException e) {
+            // Start the walk over next time rather than resuming from a possibly broken iterator
+            logger.error("Orphan sweep failed: {}", e.getMessage());
+            closeWalk();
+        }
+    }
+
+    @PreDestroy
+    public synchronized void closeWalk() {
+        if (walk != null) {
+            walk.close();
+        }
+        walk = null;
+        cursor = null;
+    }
+
+    // Up to batchSize regular files older than the cutoff, keyed by their stored relative path
+    private Map<String, Path> nextBatch(Instant cutoff) {
+        Map<String, Path> batch = new LinkedHashMap<>();
+        int examined = 0;
+        while (examined < sweeperConfig.getBatchSize() && advance()) {
+            Path file = cursor.next();
+            examined++;
+            try {
+                if (!Files.isRegularFile(file) || Files.getLastModifiedTime(file).toInstant().isAfter(cutoff)) {
+                    continue;
+                }
+            } catch (IOException e) {
+                continue;
+            }
+            batch.put(fileService.toRelativePath(file), file);
+        }
+        scannedFiles.increment(examined);
+        return batch;
+    }
+
+    // Moves to the next root when the current walk is exhausted; a new pass starts after the last one
+    private boolean advance() {
+        while (cursor == null || !cursor.hasNext()) {
+            if (cursor != null) {
+                closeWalk();
+                if (pendingRoots.isEmpty()) {
+                    // Finished a full pass; resume next run
+                    return false;
+                }
+            }
+            if (pendingRoots.isEmpty()) {
+                pendingRoots.addAll(fileService.storageRoots());
+            }
+            Path root = pendingRoots.remove(0);
+            if (!Files.isDirectory(root)) {
+                if (pendingRoots.isEmpty()) {
+                    return false;
+                }
+                continue;
+            }
+            try {
+                walk = Files.walk(root);
+                cursor = walk.iterator();
+            } catch (IOException e) {
+                logger.warn("Cannot walk {}: {}", root, e.getMessage());
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long deleteOrphan(String relativePath, Path file) {
+        try {
+            long size = Files.size(file);
+            fileService.deleteFile(relativePath);
+            return Files.exists(file) ? 0 : size;
+        } catch (IOException | UncheckedIOException e) {
+            logger.warn("Failed to delete orphan {}: {}", relativePath, e.getMessage());
+            return 0;
+        }
+    }
+
+    // Rows written on Windows hosts may use backslashes, so both spellings are looked up, each in
+    // both directory layouts
+    @SuppressWarnings("unchecked")
+    private Set<String> queryPaths(String sql, Set<String> paths) {
+        Set<String> lookup = new HashSet<>();
+        paths.forEach(path -> {
+            String alternate = StorageLayout.alternateLocation(path);
+            for (String candidate : alternate != null ? List.of(path, alternate) : List.of(path)) {
+                lookup.add(candidate);
+                lookup.add(candidate.replace("/", "\\"));
+            }
+        });
+        List<String> rows = entityManager.createNativeQuery(sql)
+                .setParameter("paths", lookup)
+                .getResultList();
+        Set<String> found = new HashSet<>();
+        rows.forEach(row -> found.add(row.replace("\\", "/")));
+        return found;
+    }
+}
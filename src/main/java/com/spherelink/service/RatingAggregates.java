@@ -0,0 +1,97 @@
+package com.spherelink.service;
+
+import java.util.Map;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import com.spherelink.config.RatingConfig;
+
+/**
+ * The per-view rating aggregates on views: count, sum, one counter per star value, the average
+ * and the Bayesian score (priorWeight * priorMean + sum) / (priorWeight + count) that most_rated
+ * sorts by. All of them change together in a single UPDATE of the view's row, so concurrent
+ * writers queue on the row lock and never lose each other's ratings. The row's @Version is left
+ * alone, so a rating never fails the owner's concurrent edit; ETags pick up rating changes
+ * through rating_count instead.
+ */
+@Service
+public class RatingAggregates {
+
+    private static final Logger logger = LoggerFactory.getLogger(RatingAggregates.class);
+
+    private static final String ADD = "UPDATE views SET rating_count = rating_count + :count, "
+            + "rating_sum = rating_sum + :sum, "
+            + "stars_1 = stars_1 + :stars1, stars_2 = stars_2 + :stars2, stars_3 = stars_3 + :stars3, "
+            + "stars_4 = stars_4 + :stars4, stars_5 = stars_5 + :stars5, "
+            + "average_rating = CAST(rating_sum + :sum AS double precision) / (rating_count + :count), "
+            + "rating_score = (:priorWeight * :priorMean + rating_sum + :sum) / (:priorWeight + rating_count + :count), "
+            + "updated_at = now() WHERE view_id = :viewId";
+
+    private static final String SCORE = "(:priorWeight * :priorMean + rating_sum) / (:priorWeight + rating_count)";
+
+    // Only rows whose score is off are written, so a restart with unchanged priors writes nothing
+    private static final String RESCORE = "UPDATE views SET rating_score = " + SCORE
+            + " WHERE rating_count > 0 AND rating_score IS DISTINCT FROM " + SCORE;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final RatingConfig ratingConfig;
+
+    public RatingAggregates(NamedParameterJdbcTemplate jdbcTemplate, RatingConfig ratingConfig) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.ratingConfig = ratingConfig;
+    }
+
+    /**
+     * Adds one rating to a view's aggregates. Returns false when the view does not exist.
+     */
+    public boolean add(UUID viewId, int stars) {
+        long[] histogram = new long[6];
+        histogram[stars]++;
+        return jdbcTemplate.update(ADD, params(viewId, histogram)) > 0;
+    }
+
+    /**
+     * Adds batches of ratings to several views at once; histograms are indexed by star value
+     * (1 to 5). Views are updated in iteration order, so pass a sorted map to keep lock order
+     * consistent across writers.
+     */
+    public void addAll(Map<UUID, long[]> histograms) {
+        MapSqlParameterSource[] batch = histograms.entrySet().stream()
+                .map(entry -> params(entry.getKey(), entry.getValue()))
+                .toArray(MapSqlParameterSource[]::new);
+        jdbcTemplate.batchUpdate(ADD, batch);
+    }
+
+    // Scores depend on the configured priors, which may have changed since the rows were written
+    @EventListener(ApplicationReadyEvent.class)
+    public void rescore() {
+        int rescored = jdbcTemplate.update(RESCORE, priors(new MapSqlParameterSource()));
+        if (rescored > 0) {
+            logger.info("Recomputed the rating score of {} views", rescored);
+        }
+    }
+
+    private MapSqlParameterSource params(UUID viewId, long[] histogram) {
+        long count = 0;
+        long sum = 0;
+        MapSqlParameterSource params = new MapSqlParameterSource("viewId", viewId);
+        for (int stars = 1; stars <= 5; stars++) {
+            count += histogram[stars];
+            sum += stars * histogram[stars];
+            params.addValue("stars" + stars, histogram[stars]);
+        }
+        return priors(params.addValue("count", count).addValue("sum", sum));
+    }
+
+    private MapSqlParameterSource priors(MapSqlParameterSource params) {
+        return params.addValue("priorWeight", ratingConfig.getPriorWeight())
+                .addValue("priorMean", ratingConfig.getPriorMean());
+    }
+}
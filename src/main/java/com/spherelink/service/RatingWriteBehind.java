@@ -0,0 +1,234 @@
+package com.spherelink.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.spherelink.config.RatingConfig;
+import com.spherelink.exception.ResourceNotFoundException;
+import com.spherelink.repository.ViewRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Write-behind path for ratings. Ratings go into a bounded in-memory queue; a scheduled flush
+ * drains it in batches and writes each batch in one transaction: one JDBC batch of inserts plus
+ * one aggregate update per rated view, however many ratings that view got. A burst on a hot view
+ * thus takes its row lock a few times per second instead of once per rating. Rows and aggregates
+ * are written together, so they cannot drift apart.
+ *
+ * With ack=flush a caller waits for its batch to commit, up to ackTimeout, and a rating of a view
+ * deleted while it was queued fails with ResourceNotFoundException. With ack=enqueue it returns at
+ * once; queued ratings are lost if the process dies, and ratings of a deleted view are dropped
+ * unanswered. On shutdown the queue is drained. A batch that fails is retried one rating at a
+ * time, so a bad row only fails itself.
+ */
+@Service
+@ConditionalOnProperty(name = "app.ratings.write-behind.enabled", havingValue = "true")
+public class RatingWriteBehind {
+
+    private static final Logger logger = LoggerFactory.getLogger(RatingWriteBehind.class);
+
+    // Inserts nothing for a view deleted while the rating was queued, instead of failing the batch
+    private static final String INSERT_RATING = "INSERT INTO ratings (rating_id, view_id, stars, comment, user_id, "
+            + "created_at) SELECT CAST(? AS uuid), CAST(? AS uuid), CAST(? AS integer), CAST(? AS varchar), "
+            + "CAST(? AS uuid), CAST(? AS timestamp) WHERE EXISTS (SELECT 1 FROM views WHERE view_id = ?)";
+
+    private record PendingRating(UUID viewId, int stars, String comment, UUID userId, LocalDateTime createdAt,
+            CompletableFuture<Void> written) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ViewRepository viewRepository;
+    private final RatingAggregates ratingAggregates;
+    private final ApplicationEventPublisher eventPublisher;
+    private final RatingConfig.WriteBehind config;
+    private final boolean waitForFlush;
+    private final BlockingQueue<PendingRating> queue;
+
+    private final Counter queued;
+    private final Counter written;
+    private final Counter rejected;
+    private final Counter timedOut;
+    private final Counter failed;
+    private final Counter viewMissing;
+
+    private volatile boolean accepting = true;
+
+    public RatingWriteBehind(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+            ViewRepository viewRepository, RatingAggregates ratingAggregates, ApplicationEventPublisher eventPublisher,
+            RatingConfig ratingConfig, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.viewRepository = viewRepository;
+        this.ratingAggregates = ratingAggregates;
+        this.eventPublisher = eventPublisher;
+        this.config = ratingConfig.getWriteBehind();
+        if (!"flush".equals(config.getAck()) && !"enqueue".equals(config.getAck())) {
+            throw new IllegalArgumentException("app.ratings.write-behind.ack must be flush or enqueue");
+        }
+        this.waitForFlush = "flush".equals(config.getAck());
+        this.queue = new ArrayBlockingQueue<>(config.getQueueCapacity());
+        this.queued = counter(meterRegistry, "queued");
+        this.written = counter(meterRegistry, "written");
+        this.rejected = counter(meterRegistry, "rejected");
+        this.timedOut = counter(meterRegistry, "timed_out");
+        this.failed = counter(meterRegistry, "failed");
+        this.viewMissing = counter(meterRegistry, "view_missing");
+        meterRegistry.gaugeCollectionSize("spherelink.ratings.write_behind.pending", Tags.empty(), queue);
+    }
+
+    /**
+     * Queues a rating of an existing view. Returns false when the queue is full or shutting
+     * down, or when ack=flush and the rating was not picked up by a flush within ackTimeout; in
+     * each case the rating is not queued and the caller writes it itself. With ack=flush, throws
+     * ResourceNotFoundException when the view was deleted before the rating was written.
+     */
+    public boolean submit(UUID viewId, int stars, String comment, UUID userId) {
+        PendingRating rating = new PendingRating(viewId, stars, comment, userId, LocalDateTime.now(),
+                new CompletableFuture<>());
+        if (!accepting || !queue.offer(rating)) {
+            rejected.increment();
+            return false;
+        }
+        // Shutdown may have drained the queue between the check and the offer
+        if (!accepting && queue.remove(rating)) {
+            rejected.increment();
+            return false;
+        }
+        queued.increment();
+        if (waitForFlush) {
+            try {
+                rating.written().get(config.getAckTimeout().toMillis(), TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                // Still queued means no flush has taken it, so it can be handed back safely
+                if (queue.remove(rating)) {
+                    timedOut.increment();
+                    return false;
+                }
+                // Being written right now; the outcome is only a batch away
+                awaitInFlight(rating);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for the rating to be written", e);
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof RuntimeException runtime ? runtime
+                        : new IllegalStateException(e.getCause());
+            }
+        }
+        return true;
+    }
+
+    // A rating already taken by a flush is acknowledged even if its batch outlasts a second ackTimeout:
+    // it may still commit, and failing here would invite a client retry that inserts it twice
+    private void awaitInFlight(PendingRating rating) {
+        try {
+            rating.written().get(config.getAckTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            logger.warn("Rating for view {} not confirmed within {}, acknowledging it as queued", rating.viewId(),
+                    config.getAckTimeout());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the rating to be written", e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException runtime ? runtime
+                    : new IllegalStateException(e.getCause());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.ratings.write-behind.flush-interval:PT0.2S}")
+    public synchronized void flush() {
+        List<PendingRating> batch = new ArrayList<>(config.getBatchSize());
+        while (queue.drainTo(batch, config.getBatchSize()) > 0) {
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    @PreDestroy
+    public void drain() {
+        accepting = false;
+        flush();
+        logger.info("Rating write-behind queue drained");
+    }
+
+    private void write(List<PendingRating> batch) {
+        List<Object[]> rows = new ArrayList<>(batch.size());
+        for (PendingRating rating : batch) {
+            rows.add(new Object[] { UUID.randomUUID(), rating.viewId(), rating.stars(), rating.comment(),
+                    rating.userId(), rating.createdAt(), rating.viewId() });
+        }
+        List<PendingRating> missing = new ArrayList<>();
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                int[] counts = jdbcTemplate.batchUpdate(INSERT_RATING, rows);
+                // Sorted, so concurrent writers always lock view rows in the same order
+                Map<UUID, long[]> histograms = new TreeMap<>();
+                missing.clear();
+                for (int i = 0; i < batch.size(); i++) {
+                    PendingRating rating = batch.get(i);
+                    if (counts[i] == 0) {
+                        missing.add(rating);
+                    } else {
+                        histograms.computeIfAbsent(rating.viewId(), id -> new long[6])[rating.stars()]++;
+                    }
+                }
+                ratingAggregates.addAll(histograms);
+                // Published in the transaction, delivered to listeners once it commits
+                viewRepository.findAllById(histograms.keySet())
+                        .forEach(view -> eventPublisher.publishEvent(ViewChangedEvent.rated(view)));
+            });
+        } catch (RuntimeException e) {
+            if (batch.size() > 1) {
+                // The batch rolled back as a whole; one rating at a time isolates the bad rows
+                logger.warn("Failed to write {} queued ratings, retrying one by one: {}", batch.size(),
+                        e.getMessage());
+                batch.forEach(rating -> write(List.of(rating)));
+                return;
+            }
+            failed.increment();
+            logger.error("Failed to write queued rating for view {}: {}", batch.get(0).viewId(), e.getMessage());
+            batch.get(0).written().completeExceptionally(e);
+            return;
+        }
+        written.increment(batch.size() - missing.size());
+        viewMissing.increment(missing.size());
+        for (PendingRating rating : batch) {
+            if (missing.contains(rating)) {
+                rating.written().completeExceptionally(
+                        new ResourceNotFoundException("View not found with ID: " + rating.viewId()));
+            } else {
+                rating.written().complete(null);
+            }
+        }
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("spherelink.ratings.write_behind")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,211 @@
+package com.spherelink.service;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.imageio.ImageIO;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Service;
+
+import com.spherelink.config.ImagingConfig;
+import com.spherelink.model.ImageRendition;
+import com.spherelink.model.MarkerBannerImage;
+import com.spherelink.model.PanoramaImage;
+import com.spherelink.model.ViewData;
+import com.spherelink.repository.ImageRenditionRepository;
+
+/**
+ * Produces downsized JPEG copies of thumbnails, banners and profile pictures at each configured
+ * width. Files are named Uploads/renditions/<original name>_<width>.jpg, so the serving path can
+ * pick one by checking for the file instead of querying the database.
+ */
+@Service
+public class RenditionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RenditionService.class);
+
+    private static final String RENDITIONS_DIR = "Uploads/renditions";
+    private static final String JPEG = "jpg";
+
+    private final FileService fileService;
+    private final ImageRenditionRepository imageRenditionRepository;
+    private final ImagingConfig imagingConfig;
+    private final TaskExecutor imageProcessingExecutor;
+    private final StorageBackend storageBackend;
+
+    // Originals queued or being processed, so one image is never rendered twice at once
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+
+    public RenditionService(FileService fileService, ImageRenditionRepository imageRenditionRepository,
+            ImagingConfig imagingConfig, @Qualifier("imageProcessingExecutor") TaskExecutor imageProcessingExecutor,
+            StorageBackend storageBackend) {
+        this.fileService = fileService;
+        this.imageRenditionRepository = imageRenditionRepository;
+        this.imagingConfig = imagingConfig;
+        this.imageProcessingExecutor = imageProcessingExecutor;
+        this.storageBackend = storageBackend;
+    }
+
+    /**
+     * Queues renditions for the thumbnail and every marker banner of a view.
+     */
+    public void schedule(ViewData view) {
+        schedule(view.getThumbnailImagePath());
+        if (view.getPanoramaImages() == null) {
+            return;
+        }
+        for (PanoramaImage pano : view.getPanoramaImages()) {
+            if (pano.getMarkers() == null) {
+                continue;
+            }
+            pano.getMarkers().forEach(marker -> {
+                if (marker.getMarkerBannerImages() != null) {
+                    for (MarkerBannerImage banner : marker.getMarkerBannerImages()) {
+                        schedule(banner.getImagePath());
+                    }
+                }
+            });
+        }
+    }
+
+    public void schedule(String originalPath) {
+        if (originalPath == null || originalPath.isBlank() || !inFlight.add(originalPath)) {
+            return;
+        }
+        try {
+            imageProcessingExecutor.execute(() -> {
+                try {
+                    generate(originalPath);
+                } finally {
+                    inFlight.remove(originalPath);
+                }
+            });
+        } catch (TaskRejectedException e) {
+            // The original is still served as-is; renditions are only an optimisation
+            inFlight.remove(originalPath);
+            logger.warn("Rendition queue full, skipping {}", originalPath);
+        }
+    }
+
+    /**
+     * Whether renditions exist for an original. Costs a single stat.
+     */
+    public boolean hasRenditions(String originalPath) {
+        return Files.exists(renditionPath(baseName(originalPath), smallestWidth(), JPEG));
+    }
+
+    /**
+     * Picks the smallest rendition at least targetWidth pixels wide. Returns null when the
+     * original should be served instead: no width hint, or a target wider than every rendition.
+     */
+    public Path select(String originalPath, Integer targetWidth, boolean saveData) {
+        Integer target = saveData ? Integer.valueOf(smallestWidth()) : targetWidth;
+        if (target == null) {
+            return null;
+        }
+        String base = baseName(originalPath);
+        for (int width : sortedWidths()) {
+            if (width < target) {
+                continue;
+            }
+            Path candidate = renditionPath(base, width, JPEG);
+            // Missing means the original is narrower than this width, so it is the best fit
+            return Files.exists(candidate) ? candidate : null;
+        }
+        return null;
+    }
+
+    @EventListener
+    public void onStoredFileDeleted(StoredFileDeletedEvent event) {
+        List<ImageRendition> renditions = imageRenditionRepository.findByOriginalPath(event.filePath());
+        if (renditions.isEmpty()) {
+            return;
+        }
+        for (ImageRendition rendition : renditions) {
+            try {
+                Files.deleteIfExists(Paths.get(rendition.getFilePath()).toAbsolutePath().normalize());
+                storageBackend.remove(rendition.getFilePath());
+            } catch (IOException e) {
+                logger.warn("Failed to delete rendition {}: {}", rendition.getFilePath(), e.getMessage());
+            }
+        }
+        imageRenditionRepository.deleteByOriginalPath(event.filePath());
+        logger.info("Deleted {} renditions of {}", renditions.size(), event.filePath());
+    }
+
+    private void generate(String originalPath) {
+        if (imageRenditionRepository.existsByOriginalPath(originalPath)) {
+            return;
+        }
+        Path source = fileService.resolveStoredFile(originalPath);
+        if (source == null) {
+            logger.warn("Cannot render, source missing: {}", originalPath);
+            return;
+        }
+        try {
+            BufferedImage image = ImageIO.read(source.toFile());
+            if (image == null) {
+                logger.warn("Cannot render, unsupported image format: {}", originalPath);
+                return;
+            }
+            image = ImageCodec.toRgb(image);
+            String base = baseName(originalPath);
+            Files.createDirectories(Paths.get(RENDITIONS_DIR).toAbsolutePath().normalize());
+
+            List<ImageRendition> renditions = new ArrayList<>();
+            for (int width : sortedWidths()) {
+                // Never upscale; the original already serves every larger request
+                if (width >= image.getWidth()) {
+                    break;
+                }
+                int height = Math.max(1, Math.round((float) image.getHeight() * width / image.getWidth()));
+                BufferedImage scaled = ImageCodec.downscale(image, width, height);
+                renditions.add(write(scaled, originalPath, base, width, "jpeg", JPEG));
+            }
+            imageRenditionRepository.saveAll(renditions);
+            logger.info("Created {} renditions of {}", renditions.size(), originalPath);
+        } catch (IOException | RuntimeException e) {
+            logger.error("Failed to create renditions of {}: {}", originalPath, e.getMessage());
+        }
+    }
+
+    private ImageRendition write(BufferedImage image, String originalPath, String base, int width, String format,
+            String extension) throws IOException {
+        Path target = renditionPath(base, width, extension);
+        ImageCodec.write(image, format, imagingConfig.getRenditionQuality(), target);
+        String relativePath = RENDITIONS_DIR + "/" + target.getFileName();
+        storageBackend.store(relativePath, target);
+        return new ImageRendition(originalPath, relativePath, extension, width, image.getHeight(), Files.size(target));
+    }
+
+    private List<Integer> sortedWidths() {
+        return imagingConfig.getRenditionWidths().stream().sorted().toList();
+    }
+
+    private int smallestWidth() {
+        return sortedWidths().get(0);
+    }
+
+    private static Path renditionPath(String base, int width, String extension) {
+        return Paths.get(RENDITIONS_DIR, base + "_" + width + "." + extension).toAbsolutePath().normalize();
+    }
+
+    private static String baseName(String path) {
+        String name = Paths.get(path.replace("\\", "/")).getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return dot > 0 ? name.substring(0, dot) : name;
+    }
+}
@@ -0,0 +1,310 @@
+package com.spherelink.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+
+import com.spherelink.config.UploadConfig;
+import com.spherelink.exception.ResourceNotFoundException;
+import com.spherelink.exception.ResumableUploadException;
+import com.spherelink.model.FileRecord;
+import com.spherelink.model.UploadSession;
+import com.spherelink.repository.FileRepository;
+import com.spherelink.repository.UploadSessionRepository;
+
+/**
+ * Resumable uploads in the style of tus: a session is created with the final length, chunks are
+ * PATCHed at the current offset (each optionally checksummed), and once complete the file is
+ * moved into Uploads/ and recorded as a FileRecord that view metadata can reference. Sessions no
+ * view has claimed expire after the configured TTL and are deleted together with their files.
+ */
+@Service
+public class ResumableUploadService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResumableUploadService.class);
+
+    // tus checksum algorithm names -> JCA names
+    private static final Map<String, String> CHECKSUM_ALGORITHMS = Map.of(
+            "md5", "MD5",
+            "sha1", "SHA-1",
+            "sha256", "SHA-256");
+
+    // Asset kinds a session may be created for, mapped to the file prefix FileService uses
+    private static final Map<String, String> FILE_PREFIXES = Map.of(
+            "thumbnail", "thumb_",
+            "panorama", "pano_",
+            "banner", "banner_",
+            "file", "file_");
+
+    // Expired sessions deleted per run; the next run picks up the rest
+    private static final int EXPIRY_BATCH_SIZE = 500;
+
+    private final UploadSessionRepository uploadSessionRepository;
+    private final FileRepository fileRepository;
+    private final FileService fileService;
+    private final UploadConfig uploadConfig;
+
+    @Value("${spring.servlet.multipart.max-file-size}")
+    private DataSize maxFileSize;
+
+    public ResumableUploadService(UploadSessionRepository uploadSessionRepository, FileRepository fileRepository,
+            FileService fileService, UploadConfig uploadConfig) {
+        this.uploadSessionRepository = uploadSessionRepository;
+        this.fileRepository = fileRepository;
+        this.fileService = fileService;
+        this.uploadConfig = uploadConfig;
+    }
+
+    public UploadSession createSession(UUID userId, String fileName, String kind, long uploadLength)
+            throws IOException {
+        if (uploadLength <= 0) {
+            throw new ResumableUploadException(400, "Upload-Length must be positive");
+        }
+        if (uploadLength > maxFileSize.toBytes()) {
+            throw new ResumableUploadException(413, "Upload exceeds the maximum size of " + maxFileSize.toBytes() + " bytes");
+        }
+        String prefix = FILE_PREFIXES.get(kind != null ? kind : "file");
+        if (prefix == null) {
+            throw new ResumableUploadException(400, "Unknown upload kind: " + kind);
+        }
+
+        UploadSession session = new UploadSession();
+        session.setUserId(userId);
+        session.setFileName(fileName != null ? fileName : "upload.jpg");
+        session.setFilePrefix(prefix);
+        session.setUploadLength(uploadLength);
+        session.setUploadOffset(0);
+        session = uploadSessionRepository.save(session);
+
+        Path partial = partialPath(session.getUploadId());
+        Files.createDirectories(partial.getParent());
+        Files.createFile(partial);
+        logger.info("Created upload session {} for {} bytes", session.getUploadId(), uploadLength);
+        return session;
+    }
+
+    public UploadSession getSession(UUID uploadId, UUID userId) {
+        UploadSession session = uploadSessionRepository.findById(uploadId)
+                .orElseThrow(() -> new ResourceNotFoundException("Upload not found with ID: " + uploadId));
+        if (!session.getUserId().equals(userId)) {
+            throw new ResumableUploadException(403, "Not authorized to access this upload");
+        }
+        return session;
+    }
+
+    /**
+     * Appends one chunk at the given offset and returns the new offset. The chunk is rejected
+     * (and anything it wrote truncated away) on an offset mismatch, checksum mismatch or
+     * overflow past the declared length.
+     */
+    public long appendChunk(UUID uploadId, UUID userId, long offset, InputStream body, String checksumHeader)
+            throws IOException {
+        UploadSession session = getSession(uploadId, userId);
+        if (session.getFileRecordId() != null) {
+            throw new ResumableUploadException(409, "Upload has already been finalized");
+        }
+
+        MessageDigest digest = null;
+        byte[] expectedChecksum = null;
+        if (checksumHeader != null && !checksumHeader.isBlank()) {
+            String[] parts = checksumHeader.trim().split("\\s+", 2);
+            String algorithm = CHECKSUM_ALGORITHMS.get(parts[0].toLowerCase());
+            if (algorithm == null || parts.length != 2) {
+                throw new ResumableUploadException(400, "Unsupported checksum: " + checksumHeader);
+            }
+            try {
+                digest = MessageDigest.getInstance(algorithm);
+                expectedChecksum = Base64.getDecoder().decode(parts[1]);
+            } catch (NoSuchAlgorithmException | IllegalArgumentException e) {
+                throw new ResumableUploadException(400, "Invalid checksum: " + checksumHeader);
+            }
+        }
+
+        Path partial = partialPath(uploadId);
+        try (FileChannel channel = FileChannel.open(partial, StandardOpenOption.WRITE)) {
+            // Serialises writers on this session, including ones on other nodes sharing the volume
+            FileLock lock = channel.tryLock();
+            if (lock == null) {
+                throw new ResumableUploadException(423, "Upload is locked by another request");
+            }
+            try {
+                // Re-read under the lock so the offset check cannot race a concurrent PATCH
+                long currentOffset = uploadSessionRepository.findById(uploadId)
+                        .map(UploadSession::getUploadOffset)
+                        .orElseThrow(() -> new ResourceNotFoundException("Upload not found with ID: " + uploadId));
+                if (currentOffset != offset) {
+                    throw new ResumableUploadException(409,
+                            "Upload-Offset " + offset + " does not match current offset " + currentOffset);
+                }
+
+                long remaining = session.getUploadLength() - offset;
+                long written;
+                try {
+                    written = fileService.writeAt(body, channel, offset, remaining, digest);
+                } catch (MaxUploadSizeExceededException e) {
+                    channel.truncate(offset);
+                    throw new ResumableUploadException(413, "Chunk exceeds the declared Upload-Length");
+                }
+
+                if (digest != null && !MessageDigest.isEqual(digest.digest(), expectedChecksum)) {
+                    channel.truncate(offset);
+                    throw new ResumableUploadException(460, "Checksum mismatch");
+                }
+
+                // Make the bytes durable before the offset that acknowledges them
+                channel.force(false);
+                long newOffset = offset + written;
+                if (uploadSessionRepository.advanceOffset(uploadId, offset, newOffset, LocalDateTime.now()) == 0) {
+                    channel.truncate(offset);
+                    throw new ResumableUploadException(409, "Upload offset changed concurrently");
+                }
+                return newOffset;
+            } finally {
+                lock.release();
+            }
+        }
+    }
+
+    /**
+     * Moves a complete upload into its final location and records it. Calling it again for an
+     * already finalized upload returns the same record.
+     */
+    public FileRecord finalizeUpload(UUID uploadId, UUID userId) throws IOException {
+        UploadSession session = getSession(uploadId, userId);
+        if (session.getFileRecordId() != null) {
+            return fileRepository.findById(session.getFileRecordId())
+                    .orElseThrow(() -> new ResourceNotFoundException("File record missing for upload: " + uploadId));
+        }
+        if (!session.isComplete()) {
+            throw new ResumableUploadException(409, "Upload is incomplete: " + session.getUploadOffset() + " of "
+                    + session.getUploadLength() + " bytes received");
+        }
+
+        FileRecord record = fileService.importFile(partialPath(uploadId), session.getFileName(),
+                session.getFilePrefix(), false);
+        record = fileRepository.save(record);
+        session.setFileRecordId(record.getId());
+        session.setUpdatedAt(LocalDateTime.now());
+        uploadSessionRepository.save(session);
+        logger.info("Finalized upload {} as {}", uploadId, record.getFilePath());
+        return record;
+    }
+
+    /**
+     * Resolves a finalized upload referenced from view metadata to its stored path and claims it
+     * for that view. A file belongs to one view only, since deleting the view deletes (or, when
+     * content addressed, releases) it; a second claim is rejected. If the view is not saved after
+     * all, {@link #releaseClaim(UUID)} makes the upload usable again.
+     */
+    public String claimFinalizedPath(UUID uploadId, UUID userId) {
+        UploadSession session = getSession(uploadId, userId);
+        if (session.getFileRecordId() == null) {
+            throw new ResumableUploadException(409, "Upload " + uploadId + " has not been finalized");
+        }
+        String path = fileRepository.findById(session.getFileRecordId())
+                .map(FileRecord::getFilePath)
+                .orElseThrow(() -> new ResourceNotFoundException("File record missing for upload: " + uploadId));
+        if (uploadSessionRepository.markConsumed(uploadId, LocalDateTime.now()) == 0) {
+            throw new ResumableUploadException(409, "Upload " + uploadId + " is already used by a view");
+        }
+        return path;
+    }
+
+    public void releaseClaim(UUID uploadId) {
+        uploadSessionRepository.clearConsumed(uploadId, LocalDateTime.now());
+    }
+
+    /**
+     * Deletes the sessions no view has claimed that have been idle for longer than the session
+     * TTL: open ones with their partial file, finalized ones with their file record and stored
+     * file. Partial files that outlived their session are removed once they are as old.
+     */
+    @Scheduled(fixedDelayString = "${app.upload.session-expiry-interval:PT15M}")
+    public synchronized void expireSessions() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(uploadConfig.getSessionTtl());
+        int expired = 0;
+        try {
+            List<UploadSession> sessions = uploadSessionRepository.findExpired(cutoff,
+                    PageRequest.of(0, EXPIRY_BATCH_SIZE));
+            for (UploadSession session : sessions) {
+                if (expire(session, cutoff)) {
+                    expired++;
+                }
+            }
+            int stray = deleteStrayPartials(Instant.now().minus(uploadConfig.getSessionTtl()));
+            if (expired > 0 || stray > 0) {
+                logger.info("Expired {} upload sessions and {} stray partial files", expired, stray);
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.error("Upload session expiry failed after {} sessions: {}", expired, e.getMessage());
+        }
+    }
+
+    private boolean expire(UploadSession session, LocalDateTime cutoff) throws IOException {
+        // Once the row is gone no claim or chunk can succeed, so the files are safe to delete
+        if (uploadSessionRepository.deleteIfExpired(session.getUploadId(), cutoff) == 0) {
+            return false;
+        }
+        Files.deleteIfExists(partialPath(session.getUploadId()));
+        if (session.getFileRecordId() != null) {
+            fileRepository.findById(session.getFileRecordId()).ifPresent(record -> {
+                // Record first, so no row is left pointing at a deleted file
+                fileRepository.delete(record);
+                fileService.deleteFile(record.getFilePath());
+            });
+        }
+        logger.debug("Expired upload session {}", session.getUploadId());
+        return true;
+    }
+
+    private int deleteStrayPartials(Instant cutoff) throws IOException {
+        Path dir = Paths.get(uploadConfig.getPartialDir()).toAbsolutePath().normalize();
+        if (!Files.isDirectory(dir)) {
+            return 0;
+        }
+        int deleted = 0;
+        try (DirectoryStream<Path> partials = Files.newDirectoryStream(dir, "*.part")) {
+            for (Path partial : partials) {
+                String name = partial.getFileName().toString();
+                UUID uploadId;
+                try {
+                    uploadId = UUID.fromString(name.substring(0, name.length() - ".part".length()));
+                } catch (IllegalArgumentException e) {
+                    continue;
+                }
+                if (Files.getLastModifiedTime(partial).toInstant().isBefore(cutoff)
+                        && !uploadSessionRepository.existsById(uploadId) && Files.deleteIfExists(partial)) {
+                    deleted++;
+                }
+            }
+        }
+        return deleted;
+    }
+
+    private Path partialPath(UUID uploadId) {
+        return Paths.get(uploadConfig.getPartialDir(), uploadId + ".part").toAbsolutePath().normalize();
+    }
+}
@@ -0,0 +1,261 @@
+package com.spherelink.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Service;
+
+import com.spherelink.config.StorageConfig;
+
+import jakarta.annotation.PreDestroy;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.core.sync.ResponseTransformer;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3Configuration;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.UploadPartResponse;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+/**
+ * Stores uploads in an S3-compatible bucket under their relative path. Large files are sent as
+ * multipart uploads whose parts are read straight from the staged local file and uploaded in
+ * parallel. Works against MinIO or similar stand-ins via app.storage.s3.endpoint and
+ * path-style-access.
+ */
+@Service
+@ConditionalOnProperty(name = "app.storage.backend", havingValue = "s3")
+public class S3StorageBackend implements StorageBackend {
+
+    private static final Logger logger = LoggerFactory.getLogger(S3StorageBackend.class);
+
+    // Keys embed a UUID or content hash, so objects never change once written
+    private static final String CACHE_CONTROL = "public, max-age=31536000, immutable";
+
+    private final StorageConfig.S3 config;
+    private final Executor storageUploadExecutor;
+    private final S3Client s3;
+    private final S3Presigner presigner;
+
+    public S3StorageBackend(StorageConfig storageConfig,
+            @Qualifier("storageUploadExecutor") Executor storageUploadExecutor) {
+        this.config = storageConfig.getS3();
+        this.storageUploadExecutor = storageUploadExecutor;
+        if (config.getBucket() == null || config.getBucket().isBlank()) {
+            throw new IllegalStateException("app.storage.s3.bucket must be set when app.storage.backend=s3");
+        }
+
+        AwsCredentialsProvider credentials = config.getAccessKey() != null && !config.getAccessKey().isBlank()
+                ? StaticCredentialsProvider.create(AwsBasicCredentials.create(config.getAccessKey(), config.getSecretKey()))
+                : DefaultCredentialsProvider.create();
+        S3Configuration serviceConfiguration = S3Configuration.builder()
+                .pathStyleAccessEnabled(config.isPathStyleAccess())
+                .build();
+
+        var clientBuilder = S3Client.builder()
+                .region(Region.of(config.getRegion()))
+                .credentialsProvider(credentials)
+                .serviceConfiguration(serviceConfiguration);
+        var presignerBuilder = S3Presigner.builder()
+                .region(Region.of(config.getRegion()))
+                .credentialsProvider(credentials)
+                .serviceConfiguration(serviceConfiguration);
+        if (config.getEndpoint() != null && !config.getEndpoint().isBlank()) {
+            clientBuilder.endpointOverride(URI.create(config.getEndpoint()));
+            presignerBuilder.endpointOverride(URI.create(config.getEndpoint()));
+        }
+        this.s3 = clientBuilder.build();
+        this.presigner = presignerBuilder.build();
+    }
+
+    @Override
+    public void store(String relativePath, Path localFile) throws IOException {
+        long size = Files.size(localFile);
+        String contentType = MediaTypeFactory.getMediaType(localFile.getFileName().toString())
+                .orElse(MediaType.APPLICATION_OCTET_STREAM).toString();
+        long startedAt = System.currentTimeMillis();
+        try {
+            if (size >= config.getMultipartThreshold().toBytes()) {
+                storeMultipart(relativePath, localFile, size, contentType);
+            } else {
+                s3.putObject(b -> b.bucket(config.getBucket()).key(relativePath)
+                        .contentType(contentType).cacheControl(CACHE_CONTROL), RequestBody.fromFile(localFile));
+            }
+        } catch (SdkException e) {
+            throw new IOException("Failed to store " + relativePath + " in bucket " + config.getBucket(), e);
+        }
+        logger.info("Stored {} ({} bytes) in {} ms", relativePath, size, System.currentTimeMillis() - startedAt);
+    }
+
+    @Override
+    public void remove(String relativePath) throws IOException {
+        try {
+            s3.deleteObject(b -> b.bucket(config.getBucket()).key(relativePath));
+        } catch (SdkException e) {
+            throw new IOException("Failed to remove " + relativePath + " from bucket " + config.getBucket(), e);
+        }
+    }
+
+    @Override
+    public boolean fetch(String relativePath, Path localFile) throws IOException {
+        Files.createDirectories(localFile.getParent());
+        // Dot-prefixed so nothing resolves the partial download as the file itself
+        Path temp = localFile.resolveSibling(".fetch-" + UUID.randomUUID());
+        long startedAt = System.currentTimeMillis();
+        try {
+            s3.getObject(b -> b.bucket(config.getBucket()).key(relativePath), ResponseTransformer.toFile(temp));
+            try {
+                Files.move(temp, localFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, localFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (NoSuchKeyException e) {
+            return false;
+        } catch (SdkException e) {
+            throw new IOException("Failed to fetch " + relativePath + " from bucket " + config.getBucket(), e);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        logger.info("Fetched {} in {} ms", relativePath, System.currentTimeMillis() - startedAt);
+        return true;
+    }
+
+    @Override
+    public boolean isLocal() {
+        return false;
+    }
+
+    @Override
+    public String objectUrl(String relativePath) {
+        if (config.getPublicUrl() != null && !config.getPublicUrl().isBlank()) {
+            return config.getPublicUrl() + "/" + relativePath;
+        }
+        return presigner.presignGetObject(b -> b.signatureDuration(config.getPresignTtl())
+                .getObjectRequest(r -> r.bucket(config.getBucket()).key(relativePath)))
+                .url()
+                .toString();
+    }
+
+    // Half the presign TTL, so a URL revalidated within its epoch still has half its life left
+    @Override
+    public String urlEpoch() {
+        if (config.getPublicUrl() != null && !config.getPublicUrl().isBlank()) {
+            return "";
+        }
+        long epochMillis = Math.max(1, config.getPresignTtl().toMillis() / 2);
+        return Long.toString(System.currentTimeMillis() / epochMillis);
+    }
+
+    @PreDestroy
+    public void close() {
+        presigner.close();
+        s3.close();
+    }
+
+    private void storeMultipart(String key, Path localFile, long size, String contentType) throws IOException {
+        String uploadId = s3.createMultipartUpload(b -> b.bucket(config.getBucket()).key(key)
+                .contentType(contentType).cacheControl(CACHE_CONTROL)).uploadId();
+        try {
+            long partSize = config.getPartSize().toBytes();
+            int partCount = (int) ((size + partSize - 1) / partSize);
+            List<CompletableFuture<CompletedPart>> parts = new ArrayList<>(partCount);
+            for (int i = 0; i < partCount; i++) {
+                int partNumber = i + 1;
+                long offset = i * partSize;
+                long length = Math.min(partSize, size - offset);
+                parts.add(CompletableFuture.supplyAsync(() -> {
+                    UploadPartResponse response = s3.uploadPart(b -> b.bucket(config.getBucket()).key(key)
+                            .uploadId(uploadId).partNumber(partNumber).contentLength(length),
+                            RequestBody.fromContentProvider(() -> openRange(localFile, offset, length), length,
+                                    contentType));
+                    return CompletedPart.builder().partNumber(partNumber).eTag(response.eTag()).build();
+                }, storageUploadExecutor));
+            }
+            List<CompletedPart> completed = parts.stream().map(CompletableFuture::join).toList();
+            s3.completeMultipartUpload(b -> b.bucket(config.getBucket()).key(key).uploadId(uploadId)
+                    .multipartUpload(m -> m.parts(completed)));
+        } catch (CompletionException | SdkException e) {
+            // Without an abort the uploaded parts keep costing storage until a lifecycle rule reaps them
+            try {
+                s3.abortMultipartUpload(b -> b.bucket(config.getBucket()).key(key).uploadId(uploadId));
+            } catch (SdkException abortFailure) {
+                logger.warn("Failed to abort multipart upload {} for {}: {}", uploadId, key, abortFailure.getMessage());
+            }
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            throw new IOException("Multipart upload of " + key + " failed", cause);
+        }
+    }
+
+    // Each part reads its own byte range, so parts can be (re)sent independently and in parallel
+    private static InputStream openRange(Path file, long offset, long length) {
+        try {
+            return new RangeInputStream(FileChannel.open(file, StandardOpenOption.READ), offset, length);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static class RangeInputStream extends InputStream {
+
+        private final FileChannel channel;
+        private long position;
+        private long remaining;
+
+        RangeInputStream(FileChannel channel, long offset, long length) {
+            this.channel = channel;
+            this.position = offset;
+            this.remaining = length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) == -1 ? -1 : single[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int n = channel.read(ByteBuffer.wrap(b, off, (int) Math.min(len, remaining)), position);
+            if (n > 0) {
+                position += n;
+                remaining -= n;
+            }
+            return n;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.spherelink.service;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.spherelink.config.UploadConfig;
+
+/**
+ * Moves uploads from the old flat directories into the sharded layout, a batch per run. Each
+ * batch first moves the files and then rewrites every column that stores the paths of the files
+ * that actually moved (one JDBC batch per column, all in a single transaction), so no row ever
+ * points at a location its file never reached. Between the two steps the old path is served from
+ * the new location through FileService's resolver. If a move fails, the file and its rows stay
+ * flat and are picked up again by the next run; if the rewrite fails, the files are moved back.
+ */
+@Service
+public class ShardMigrationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShardMigrationService.class);
+
+    private static final List<String> PATH_UPDATES = List.of(
+            // Views whose own or child paths move get a new version, since their URLs and ETags change
+            "UPDATE views SET thumbnail_image = ?, version = version + 1, updated_at = now() "
+                    + "WHERE thumbnail_image = ?",
+            "UPDATE views SET creator_profile_image_path = ?, version = version + 1, updated_at = now() "
+                    + "WHERE creator_profile_image_path = ?",
+            "UPDATE panorama_images SET image_path = ? WHERE image_path = ?",
+            "UPDATE views SET version = version + 1, updated_at = now() WHERE view_id IN "
+                    + "(SELECT view_id FROM panorama_images WHERE image_path IN (?, ?))",
+            "UPDATE marker_banner_images SET image_path = ? WHERE image_path = ?",
+            "UPDATE views SET version = version + 1, updated_at = now() WHERE view_id IN "
+                    + "(SELECT p.view_id FROM marker_banner_images b JOIN markers m ON m.marker_id = b.marker_id "
+                    + "JOIN panorama_images p ON p.image_id = m.image_id WHERE b.image_path IN (?, ?))",
+            "UPDATE users SET profile_image_path = ? WHERE profile_image_path = ?",
+            "UPDATE file_records SET file_path = ? WHERE file_path = ?",
+            "UPDATE stored_assets SET file_path = ? WHERE file_path = ?",
+            "UPDATE image_renditions SET original_path = ? WHERE original_path = ?");
+
+    private final FileService fileService;
+    private final UploadConfig uploadConfig;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    private boolean completionLogged;
+
+    public ShardMigrationService(FileService fileService, UploadConfig uploadConfig, JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate) {
+        this.fileService = fileService;
+        this.uploadConfig = uploadConfig;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @Scheduled(fixedDelayString = "${app.upload.shard-migration-interval:PT1M}")
+    public synchronized void migrateBatch() {
+        if (!uploadConfig.isShardMigrationEnabled() || !uploadConfig.isShardedLayout()) {
+            return;
+        }
+        try {
+            Map<String, String> moves = nextBatch();
+            if (moves.isEmpty()) {
+                if (!completionLogged) {
+                    logger.info("Shard migration complete, no flat uploads left");
+                    completionLogged = true;
+                }
+                return;
+            }
+            completionLogged = false;
+
+            Map<String, String> moved = new LinkedHashMap<>();
+            moves.forEach((flatPath, shardedPath) -> {
+                if (moveFile(flatPath, shardedPath)) {
+                    moved.put(flatPath, shardedPath);
+                }
+            });
+            if (!moved.isEmpty()) {
+                try {
+                    rewritePaths(moved);
+                } catch (RuntimeException e) {
+                    // Rows still hold the flat paths; put the files back where they point
+                    moved.forEach((flatPath, shardedPath) -> moveFile(shardedPath, flatPath));
+                    throw e;
+                }
+            }
+            logger.info("Shard migration moved {} of {} files", moved.size(), moves.size());
+        } catch (RuntimeException e) {
+            logger.error("Shard migration batch failed: {}", e.getMessage());
+        }
+    }
+
+    // Flat files are the regular files directly inside each root; sharded ones sit two levels down
+    private Map<String, String> nextBatch() {
+        Map<String, String> moves = new LinkedHashMap<>();
+        int limit = uploadConfig.getShardMigrationBatchSize();
+        for (Path root : fileService.storageRoots()) {
+            if (!Files.isDirectory(root)) {
+                continue;
+            }
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(root,
+                    entry -> Files.isRegularFile(entry) && !entry.getFileName().toString().startsWith("."))) {
+                for (Path entry : entries) {
+                    if (moves.size() >= limit) {
+                        return moves;
+                    }
+                    String flatPath = fileService.toRelativePath(entry);
+                    String shardedPath = fileService.shardedLocation(flatPath);
+                    if (shardedPath != null) {
+                        moves.put(flatPath, shardedPath);
+                    }
+                }
+            } catch (IOException e) {
+                logger.warn("Cannot list {}: {}", root, e.getMessage());
+            }
+        }
+        return moves;
+    }
+
+    private void rewritePaths(Map<String, String> moves) {
+        List<Object[]> args = new ArrayList<>();
+        moves.forEach((flatPath, shardedPath) -> {
+            args.add(new Object[] { shardedPath, flatPath });
+            // Rows written on Windows hosts may use backslashes
+            args.add(new Object[] { shardedPath, flatPath.replace("/", "\\") });
+        });
+        transactionTemplate.executeWithoutResult(status -> {
+            for (String sql : PATH_UPDATES) {
+                jdbcTemplate.batchUpdate(sql, args);
+            }
+        });
+    }
+
+    private boolean moveFile(String flatPath, String shardedPath) {
+        Path source = Paths.get(flatPath).toAbsolutePath().normalize();
+        Path target = Paths.get(shardedPath).toAbsolutePath().normalize();
+        try {
+            Files.createDirectories(target.getParent());
+            try {
+                Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(source, target);
+            }
+            return true;
+        } catch (IOException e) {
+            logger.warn("Failed to move {} to {}: {}", flatPath, shardedPath, e.getMessage());
+            return false;
+        }
+    }
+}
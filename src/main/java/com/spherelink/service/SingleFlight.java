@@ -0,0 +1,92 @@
+package com.spherelink.service;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+
+/**
+ * Coalesces concurrent calls for the same key: the first caller (the leader) runs the load on its
+ * own thread and every caller arriving while it runs waits for that result instead of starting
+ * another load. Results are not kept once the load finishes; that is the cache's job.
+ *
+ * A caller that waits longer than the timeout stops waiting and loads on its own, so one stuck
+ * query cannot hold every request for that key. Counts are published as singleflight.calls with
+ * name and result=leader, joined or timeout, and singleflight.in-flight as a gauge.
+ */
+public class SingleFlight<K, V> {
+
+    private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final Duration timeout;
+    private final Counter leaders;
+    private final Counter joined;
+    private final Counter timeouts;
+
+    public SingleFlight(String name, Duration timeout, MeterRegistry meterRegistry) {
+        this.timeout = timeout;
+        this.leaders = counter(meterRegistry, name, "leader");
+        this.joined = counter(meterRegistry, name, "joined");
+        this.timeouts = counter(meterRegistry, name, "timeout");
+        meterRegistry.gauge("singleflight.in-flight", Tags.of("name", name), inFlight, Map::size);
+    }
+
+    public V execute(K key, Supplier<V> loader) {
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, mine);
+        if (running == null) {
+            leaders.increment();
+            return lead(key, mine, loader);
+        }
+        joined.increment();
+        try {
+            return running.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            timeouts.increment();
+            return loader.get();
+        } catch (ExecutionException e) {
+            throw rethrow(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for " + key, e);
+        }
+    }
+
+    private V lead(K key, CompletableFuture<V> mine, Supplier<V> loader) {
+        try {
+            V value = loader.get();
+            mine.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            // Later callers start a fresh load; those already waiting still get this result
+            inFlight.remove(key, mine);
+        }
+    }
+
+    private static RuntimeException rethrow(Throwable cause) {
+        if (cause instanceof RuntimeException runtime) {
+            return runtime;
+        }
+        if (cause instanceof Error error) {
+            throw error;
+        }
+        return new IllegalStateException(cause);
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String name, String result) {
+        return Counter.builder("singleflight.calls")
+                .tag("name", name)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,64 @@
+package com.spherelink.service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Where uploaded bytes ultimately live. Every file is first written under the local Uploads/
+ * directory (which doubles as a write-through staging area and node-local cache) and then
+ * handed to the backend under its relative path, which is also its object key. Clients are
+ * given URLs from {@link #publicUrl(String)}, so a remote backend can serve the bytes directly,
+ * and nodes that need bytes written elsewhere pull them into their cache with
+ * {@link #fetch(String, Path)}.
+ */
+public interface StorageBackend {
+
+    /**
+     * Publishes a finished local file under the given relative path.
+     */
+    void store(String relativePath, Path localFile) throws IOException;
+
+    /**
+     * Removes the stored copy of a relative path. Missing objects are not an error.
+     */
+    void remove(String relativePath) throws IOException;
+
+    /**
+     * Copies the stored object at a relative path to a local file, replacing it atomically.
+     * Returns false if the backend has no such object.
+     */
+    boolean fetch(String relativePath, Path localFile) throws IOException;
+
+    /**
+     * Whether the local Uploads/ directory is the authoritative copy.
+     */
+    boolean isLocal();
+
+    /**
+     * URL for an already normalised relative path.
+     */
+    String objectUrl(String relativePath);
+
+    /**
+     * Changes whenever URLs handed out earlier may stop working, e.g. as presigned URLs near
+     * expiry. ETags include it so a 304 never keeps a client on dead URLs. Stable URLs return "".
+     */
+    default String urlEpoch() {
+        return "";
+    }
+
+    /**
+     * URL clients should fetch a stored path from. Absolute URLs (e.g. Google profile pictures)
+     * pass through, and Windows separators from old rows are normalised.
+     */
+    default String publicUrl(String path) {
+        if (path == null) {
+            return null;
+        }
+        String normalized = path.replace("\\", "/");
+        if (normalized.startsWith("http://") || normalized.startsWith("https://")) {
+            return normalized;
+        }
+        return objectUrl(normalized);
+    }
+}
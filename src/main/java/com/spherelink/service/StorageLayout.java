@@ -0,0 +1,76 @@
+package com.spherelink.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Two-level hex fan-out for upload directories: Uploads/<subDir>/<aa>/<bb>/<name>, where aa and
+ * bb come from the random UUID (or content hash) in the generated file name. That keeps every
+ * directory to a few hundred entries per 16M files instead of one huge flat listing.
+ */
+final class StorageLayout {
+
+    // Generated names end with a random UUID; content-addressed names are a SHA-256
+    private static final Pattern ID = Pattern.compile(
+            "[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}|[0-9a-f]{64}");
+    private static final Pattern SHARD = Pattern.compile("[0-9a-f]{2}");
+
+    private StorageLayout() {
+    }
+
+    /**
+     * Returns "aa/bb" for a file name. Profile names carry the user id before the random UUID,
+     * so the last id in the name is used; names without one are sharded by a hash of the name.
+     */
+    static String shardOf(String filename) {
+        Matcher matcher = ID.matcher(filename);
+        String hex = null;
+        while (matcher.find()) {
+            hex = matcher.group().replace("-", "");
+        }
+        if (hex == null) {
+            hex = sha256Hex(filename);
+        }
+        return hex.substring(0, 2) + "/" + hex.substring(2, 4);
+    }
+
+    /**
+     * Maps a flat path (Uploads/<subDir>/<name>) to its sharded location, or null if the path
+     * is already sharded or not an upload path.
+     */
+    static String toSharded(String relativePath) {
+        String[] parts = relativePath.replace("\\", "/").split("/");
+        if (parts.length != 3) {
+            return null;
+        }
+        return parts[0] + "/" + parts[1] + "/" + shardOf(parts[2]) + "/" + parts[2];
+    }
+
+    /**
+     * The same file's location in the other layout, so paths recorded before or during the
+     * migration stay readable whichever side of the move the file is on.
+     */
+    static String alternateLocation(String relativePath) {
+        String[] parts = relativePath.replace("\\", "/").split("/");
+        if (parts.length == 3) {
+            return toSharded(relativePath);
+        }
+        if (parts.length == 5 && SHARD.matcher(parts[2]).matches() && SHARD.matcher(parts[3]).matches()) {
+            return parts[0] + "/" + parts[1] + "/" + parts[4];
+        }
+        return null;
+    }
+
+    private static String sha256Hex(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
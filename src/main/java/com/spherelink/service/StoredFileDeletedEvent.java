@@ -0,0 +1,8 @@
+package com.spherelink.service;
+
+/**
+ * Published once the bytes of a stored upload are gone, so files derived from it (tiles,
+ * renditions) can be removed too. filePath is the relative path as stored in the database.
+ */
+public record StoredFileDeletedEvent(String filePath) {
+}
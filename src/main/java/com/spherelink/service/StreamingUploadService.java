@@ -0,0 +1,192 @@
+package com.spherelink.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.spherelink.config.UploadConfig;
+import com.spherelink.model.FileRecord;
+import com.spherelink.model.Marker;
+import com.spherelink.model.ViewData;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Ingests a view upload by reading the raw multipart request body once, in order. File parts are
+ * written straight into their final upload location and form fields are parsed as they arrive,
+ * so nothing is staged in container temp files or held on the heap.
+ */
+@Service
+public class StreamingUploadService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StreamingUploadService.class);
+
+    private static final Pattern IMAGE_NAME_FIELD = Pattern.compile("panorama\\[(\\d+)]\\[imageName]");
+    private static final Pattern MARKERS_FIELD = Pattern.compile("panorama\\[(\\d+)]\\[markers]");
+    private static final Pattern UPLOAD_ID_FIELD = Pattern.compile("panorama\\[(\\d+)]\\[uploadId]");
+    private static final Pattern PANORAMA_FILE = Pattern.compile("panoramaImage_(\\d+)");
+    private static final Pattern BANNER_FILE = Pattern.compile("bannerImage_(\\d+)_(\\d+)_(\\d+)");
+
+    private final FileService fileService;
+    private final ViewService viewService;
+    private final ObjectMapper objectMapper;
+    private final ResumableUploadService resumableUploadService;
+    private final UploadConfig uploadConfig;
+
+    @Value("${spring.servlet.multipart.max-request-size}")
+    private DataSize maxRequestSize;
+
+    @Value("${spring.servlet.multipart.max-file-size}")
+    private DataSize maxFileSize;
+
+    public StreamingUploadService(FileService fileService, ViewService viewService, ObjectMapper objectMapper,
+            ResumableUploadService resumableUploadService, UploadConfig uploadConfig) {
+        this.fileService = fileService;
+        this.viewService = viewService;
+        this.objectMapper = objectMapper;
+        this.resumableUploadService = resumableUploadService;
+        this.uploadConfig = uploadConfig;
+    }
+
+    public ViewData ingestView(HttpServletRequest request, UUID userId) throws IOException {
+        String boundary = MultipartStreamReader.extractBoundary(request.getContentType());
+        if (boundary == null) {
+            throw new IllegalArgumentException("Request is not multipart/form-data");
+        }
+        long contentLength = request.getContentLengthLong();
+        if (contentLength > maxRequestSize.toBytes()) {
+            throw new MaxUploadSizeExceededException(maxRequestSize.toBytes());
+        }
+
+        ViewUpload upload = new ViewUpload();
+        try {
+            MultipartStreamReader reader = new MultipartStreamReader(request.getInputStream(), boundary,
+                    uploadConfig.getStreamBufferSize(), maxRequestSize.toBytes());
+            MultipartStreamReader.Part part;
+            while ((part = reader.nextPart()) != null) {
+                if (part.name() == null) {
+                    continue;
+                }
+                if (part.isFile()) {
+                    storeFilePart(part, reader, upload);
+                } else {
+                    readFormField(part.name(), reader.readString(), upload, userId);
+                }
+            }
+
+            ViewData viewData = upload.assemble();
+            viewData.setUserId(userId);
+            ViewData saved = viewService.saveView(viewData);
+            logger.info("Streamed view upload with {} files ({} bytes)", upload.getStoredPaths().size(),
+                    reader.getBytesRead());
+            return saved;
+        } catch (IOException | RuntimeException e) {
+            logger.error("Streaming upload failed, removing {} stored files: {}", upload.getStoredPaths().size(),
+                    e.getMessage());
+            upload.getStoredPaths().forEach(fileService::deleteFile);
+            upload.getClaimedUploads().forEach(resumableUploadService::releaseClaim);
+            throw e;
+        }
+    }
+
+    private void storeFilePart(MultipartStreamReader.Part part, MultipartStreamReader reader, ViewUpload upload)
+            throws IOException {
+        String name = part.name();
+        Matcher matcher;
+        if ("thumbnailImage".equals(name)) {
+            FileRecord record = saveBounded(reader, part, "thumb_");
+            if (record != null) {
+                upload.setThumbnailPath(record.getFilePath());
+            }
+        } else if ((matcher = PANORAMA_FILE.matcher(name)).matches()) {
+            FileRecord record = saveBounded(reader, part, "pano_");
+            if (record != null) {
+                upload.setPanoramaPath(Integer.parseInt(matcher.group(1)), record.getFilePath());
+            }
+        } else if ((matcher = BANNER_FILE.matcher(name)).matches()) {
+            FileRecord record = saveBounded(reader, part, "banner_");
+            if (record != null) {
+                upload.setBannerPath(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)),
+                        Integer.parseInt(matcher.group(3)), record.getFilePath());
+            }
+        } else {
+            logger.debug("Skipping unexpected file part: {}", name);
+        }
+    }
+
+    private FileRecord saveBounded(MultipartStreamReader reader, MultipartStreamReader.Part part, String prefix)
+            throws IOException {
+        InputStream in = new LimitedInputStream(reader.openStream(), maxFileSize.toBytes());
+        return fileService.saveStream(in, part.filename(), prefix, false);
+    }
+
+    private void readFormField(String name, String value, ViewUpload upload, UUID userId) throws IOException {
+        Matcher matcher;
+        if ("metadata".equals(name)) {
+            logger.debug("Raw metadata JSON: {}", value);
+            upload.setViewData(objectMapper.readValue(value, ViewData.class));
+        } else if ((matcher = IMAGE_NAME_FIELD.matcher(name)).matches()) {
+            upload.setImageName(Integer.parseInt(matcher.group(1)), value);
+        } else if ((matcher = MARKERS_FIELD.matcher(name)).matches()) {
+            List<Marker> markerList = objectMapper.readValue(value,
+                    objectMapper.getTypeFactory().constructCollectionType(List.class, Marker.class));
+            upload.setMarkers(Integer.parseInt(matcher.group(1)), markerList);
+        } else if ((matcher = UPLOAD_ID_FIELD.matcher(name)).matches()) {
+            UUID uploadId = UUID.fromString(value.trim());
+            upload.referencePanoramaPath(Integer.parseInt(matcher.group(1)), uploadId,
+                    resumableUploadService.claimFinalizedPath(uploadId, userId));
+        } else if ("thumbnailUploadId".equals(name)) {
+            UUID uploadId = UUID.fromString(value.trim());
+            upload.referenceThumbnailPath(uploadId, resumableUploadService.claimFinalizedPath(uploadId, userId));
+        }
+    }
+
+    // Enforces spring.servlet.multipart.max-file-size on a single streamed part
+    private static class LimitedInputStream extends InputStream {
+
+        private final InputStream delegate;
+        private final long limit;
+        private long count;
+
+        LimitedInputStream(InputStream delegate, long limit) {
+            this.delegate = delegate;
+            this.limit = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = delegate.read();
+            if (b != -1) {
+                checkLimit(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = delegate.read(b, off, len);
+            if (n > 0) {
+                checkLimit(n);
+            }
+            return n;
+        }
+
+        private void checkLimit(int n) {
+            count += n;
+            if (limit > 0 && count > limit) {
+                throw new MaxUploadSizeExceededException(limit);
+            }
+        }
+    }
+}
@@ -0,0 +1,360 @@
+package com.spherelink.service;
+
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.spherelink.config.ImagingConfig;
+import com.spherelink.model.PanoramaImage;
+
+/**
+ * Builds an equirectangular tile pyramid for each stored panorama. The source is decoded one row
+ * of tiles at a time; each strip is tiled at full resolution, then repeatedly halved and tiled
+ * again down to the level that fits in one tile.
+ * Output lives under Uploads/tiles/<source name>/<level>/<x>_<y>.jpg, with level 0 the
+ * smallest. manifest.json is written last, so its presence means the pyramid is complete.
+ */
+@Service
+public class TilePyramidService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TilePyramidService.class);
+
+    private static final String TILES_DIR = "Uploads/tiles";
+    private static final String MANIFEST_FILE = "manifest.json";
+
+    private final FileService fileService;
+    private final ObjectMapper objectMapper;
+    private final ImagingConfig imagingConfig;
+    private final TaskExecutor imageProcessingExecutor;
+    private final StorageBackend storageBackend;
+
+    // Pyramid directories queued or being built, so a panorama is never processed twice at once
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+
+    public TilePyramidService(FileService fileService, ObjectMapper objectMapper, ImagingConfig imagingConfig,
+            @Qualifier("imageProcessingExecutor") TaskExecutor imageProcessingExecutor, StorageBackend storageBackend) {
+        this.fileService = fileService;
+        this.objectMapper = objectMapper;
+        this.imagingConfig = imagingConfig;
+        this.imageProcessingExecutor = imageProcessingExecutor;
+        this.storageBackend = storageBackend;
+    }
+
+    /**
+     * Queues pyramid generation for every panorama that does not have one yet.
+     */
+    public void schedule(Collection<PanoramaImage> panoramas) {
+        if (panoramas == null) {
+            return;
+        }
+        for (PanoramaImage pano : panoramas) {
+            schedule(pano.getImagePath());
+        }
+    }
+
+    /**
+     * Queues pyramid generation for one stored image. Returns false if the pool is saturated;
+     * the manifest endpoint calls this again on the next request.
+     */
+    public boolean schedule(String imagePath) {
+        if (imagePath == null || imagePath.isBlank()) {
+            return false;
+        }
+        String key = pyramidName(imagePath);
+        if (inFlight.contains(key) || findManifest(imagePath) != null || !inFlight.add(key)) {
+            return true;
+        }
+        try {
+            imageProcessingExecutor.execute(() -> {
+                try {
+                    generate(imagePath, key);
+                } finally {
+                    inFlight.remove(key);
+                }
+            });
+            return true;
+        } catch (TaskRejectedException e) {
+            inFlight.remove(key);
+            logger.warn("Tile generation queue full, deferring {}", imagePath);
+            return false;
+        }
+    }
+
+    /**
+     * Returns the manifest of a finished pyramid, or null if it has not been generated yet. The
+     * pyramid may have been built on another node, so this goes through the storage backend.
+     */
+    public Path findManifest(String imagePath) {
+        return fileService.resolveStoredFile(manifestKey(pyramidName(imagePath)));
+    }
+
+    @EventListener
+    public void onStoredFileDeleted(StoredFileDeletedEvent event) {
+        String key = pyramidName(event.filePath());
+        if (!storageBackend.isLocal()) {
+            removeStoredTiles(key);
+        }
+        Path outputDir = Paths.get(TILES_DIR, key).toAbsolutePath().normalize();
+        if (!Files.isDirectory(outputDir)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(outputDir)) {
+            // Deepest first so directories are empty by the time they are deleted
+            Path tilesRoot = Paths.get(TILES_DIR).toAbsolutePath().normalize();
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    if (Files.isRegularFile(path)) {
+                        storageBackend.remove(TILES_DIR + "/" + tilesRoot.relativize(path).toString().replace("\\", "/"));
+                    }
+                    Files.deleteIfExists(path);
+                } catch (IOException e) {
+                    logger.warn("Failed to delete tile {}: {}", path, e.getMessage());
+                }
+            });
+            logger.info("Deleted tile pyramid for {}", event.filePath());
+        } catch (IOException e) {
+            logger.error("Failed to delete tiles for {}: {}", event.filePath(), e.getMessage());
+        }
+    }
+
+    // Another node may have built the pyramid, so the tiles to remove are listed from its manifest
+    private void removeStoredTiles(String key) {
+        String manifestKey = manifestKey(key);
+        Path manifest = fileService.resolveStoredFile(manifestKey);
+        if (manifest == null) {
+            return;
+        }
+        try {
+            JsonNode levels = objectMapper.readTree(manifest.toFile()).path("levels");
+            // Manifest first, so a half-removed pyramid is never taken for a finished one
+            storageBackend.remove(manifestKey);
+            for (JsonNode level : levels) {
+                for (int y = 0; y < level.path("rows").asInt(); y++) {
+                    for (int x = 0; x < level.path("columns").asInt(); x++) {
+                        storageBackend.remove(TILES_DIR + "/" + key + "/" + level.path("level").asInt() + "/" + x + "_"
+                                + y + ".jpg");
+                    }
+                }
+            }
+        } catch (IOException e) {
+            logger.error("Failed to remove stored tiles for {}: {}", key, e.getMessage());
+        }
+    }
+
+    private void generate(String imagePath, String key) {
+        Path source = fileService.resolveStoredFile(imagePath);
+        if (source == null) {
+            logger.warn("Cannot build tiles, source missing: {}", imagePath);
+            return;
+        }
+        long startedAt = System.currentTimeMillis();
+        Path outputDir = Paths.get(TILES_DIR, key).toAbsolutePath().normalize();
+        try (ImageInputStream input = ImageIO.createImageInputStream(source.toFile())) {
+            Iterator<ImageReader> readers = input != null ? ImageIO.getImageReaders(input) : null;
+            if (readers == null || !readers.hasNext()) {
+                logger.warn("Cannot build tiles, unsupported image format: {}", imagePath);
+                return;
+            }
+            ImageReader reader = readers.next();
+            List<Map<String, Object>> levels;
+            int width;
+            int height;
+            int tileSize = imagingConfig.getTileSize();
+            try {
+                reader.setInput(input);
+                width = reader.getWidth(0);
+                height = reader.getHeight(0);
+                PyramidWriter pyramid = new PyramidWriter(outputDir, key, tileSize,
+                        levelsAbove(Math.max(width, height), tileSize), width, height);
+
+                // Decoding one row of tiles at a time bounds memory by the panorama's width, not its area
+                ImageReadParam param = reader.getDefaultReadParam();
+                for (int top = 0; top < height; top += tileSize) {
+                    param.setSourceRegion(new Rectangle(0, top, width, Math.min(tileSize, height - top)));
+                    pyramid.add(pyramid.maxLevel, reader.read(0, param));
+                }
+                levels = pyramid.levels();
+            } finally {
+                reader.dispose();
+            }
+
+            Map<String, Object> manifest = new LinkedHashMap<>();
+            manifest.put("source", imagePath.replace("\\", "/"));
+            manifest.put("projection", "equirectangular");
+            manifest.put("width", width);
+            manifest.put("height", height);
+            manifest.put("tileSize", tileSize);
+            manifest.put("format", "jpg");
+            manifest.put("tileUrlTemplate", TILES_DIR + "/" + key + "/{level}/{x}_{y}.jpg");
+            manifest.put("levels", levels);
+            writeManifest(outputDir, manifest);
+            storageBackend.store(manifestKey(key), outputDir.resolve(MANIFEST_FILE));
+            logger.info("Built {}-level tile pyramid for {} in {} ms", levels.size(), imagePath,
+                    System.currentTimeMillis() - startedAt);
+        } catch (IOException | RuntimeException e) {
+            logger.error("Failed to build tiles for {}: {}", imagePath, e.getMessage());
+        }
+    }
+
+    /**
+     * Streams a panorama through every level of its pyramid in strips. Each level buffers rows
+     * until it has a full row of tiles, writes them, then halves those rows into the level below,
+     * so only about one tile row per level is held in memory at a time.
+     */
+    private class PyramidWriter {
+
+        private final Path outputDir;
+        private final String key;
+        private final int tileSize;
+        private final int maxLevel;
+        private final int[] widths;
+        private final int[] heights;
+
+        // Rows of the tile row being filled at each level, how many are filled, and which tile row it is
+        private final BufferedImage[] buffers;
+        private final int[] filled;
+        private final int[] tileRows;
+
+        PyramidWriter(Path outputDir, String key, int tileSize, int maxLevel, int width, int height) {
+            this.outputDir = outputDir;
+            this.key = key;
+            this.tileSize = tileSize;
+            this.maxLevel = maxLevel;
+            this.widths = new int[maxLevel + 1];
+            this.heights = new int[maxLevel + 1];
+            this.buffers = new BufferedImage[maxLevel + 1];
+            this.filled = new int[maxLevel + 1];
+            this.tileRows = new int[maxLevel + 1];
+            for (int level = maxLevel; level >= 0; level--) {
+                widths[level] = width;
+                heights[level] = height;
+                width = Math.max(1, (width + 1) / 2);
+                height = Math.max(1, (height + 1) / 2);
+            }
+        }
+
+        // Appends the next rows of a level, top to bottom
+        void add(int level, BufferedImage strip) throws IOException {
+            int offset = 0;
+            while (offset < strip.getHeight()) {
+                if (buffers[level] == null) {
+                    int rows = Math.min(tileSize, heights[level] - tileRows[level] * tileSize);
+                    // JPEG has no alpha channel; also normalises exotic decoded types for fast drawing
+                    buffers[level] = new BufferedImage(widths[level], rows, BufferedImage.TYPE_INT_RGB);
+                    filled[level] = 0;
+                }
+                BufferedImage buffer = buffers[level];
+                int rows = Math.min(strip.getHeight() - offset, buffer.getHeight() - filled[level]);
+                Graphics2D g = buffer.createGraphics();
+                try {
+                    g.drawImage(strip, 0, filled[level] - offset, null);
+                } finally {
+                    g.dispose();
+                }
+                filled[level] += rows;
+                offset += rows;
+                if (filled[level] == buffer.getHeight()) {
+                    buffers[level] = null;
+                    flush(level, buffer);
+                }
+            }
+        }
+
+        private void flush(int level, BufferedImage buffer) throws IOException {
+            int tileRow = tileRows[level]++;
+            Path levelDir = outputDir.resolve(String.valueOf(level));
+            Files.createDirectories(levelDir);
+            int columns = (buffer.getWidth() + tileSize - 1) / tileSize;
+            for (int x = 0; x < columns; x++) {
+                int tileWidth = Math.min(tileSize, buffer.getWidth() - x * tileSize);
+                BufferedImage tile = buffer.getSubimage(x * tileSize, 0, tileWidth, buffer.getHeight());
+                Path tilePath = levelDir.resolve(x + "_" + tileRow + ".jpg");
+                ImageCodec.write(tile, "jpeg", imagingConfig.getTileQuality(), tilePath);
+                storageBackend.store(TILES_DIR + "/" + key + "/" + level + "/" + tilePath.getFileName(), tilePath);
+            }
+            if (level > 0) {
+                // Rounded the same way as halving the whole level, so strips add up to the level below
+                int rowsAbove = tileRow * tileSize;
+                int halvedRows = (rowsAbove + buffer.getHeight() + 1) / 2 - (rowsAbove + 1) / 2;
+                add(level - 1, ImageCodec.scale(buffer, widths[level - 1], halvedRows));
+            }
+        }
+
+        List<Map<String, Object>> levels() {
+            List<Map<String, Object>> levels = new ArrayList<>();
+            for (int level = 0; level <= maxLevel; level++) {
+                Map<String, Object> info = new LinkedHashMap<>();
+                info.put("level", level);
+                info.put("width", widths[level]);
+                info.put("height", heights[level]);
+                info.put("columns", (widths[level] + tileSize - 1) / tileSize);
+                info.put("rows", (heights[level] + tileSize - 1) / tileSize);
+                levels.add(info);
+            }
+            return levels;
+        }
+    }
+
+    private void writeManifest(Path outputDir, Map<String, Object> manifest) throws IOException {
+        Path temp = outputDir.resolve(".tmp-" + MANIFEST_FILE);
+        objectMapper.writeValue(temp.toFile(), manifest);
+        try {
+            Files.move(temp, outputDir.resolve(MANIFEST_FILE), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, outputDir.resolve(MANIFEST_FILE), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    // Number of halvings needed before the longest edge fits in a single tile
+    private static int levelsAbove(int longestEdge, int tileSize) {
+        int levels = 0;
+        while (longestEdge > tileSize) {
+            longestEdge = (longestEdge + 1) / 2;
+            levels++;
+        }
+        return levels;
+    }
+
+    // Stored names are unique (UUID or content hash), so the file name identifies the pyramid
+    private static String pyramidName(String imagePath) {
+        String name = Paths.get(imagePath.replace("\\", "/")).getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return dot > 0 ? name.substring(0, dot) : name;
+    }
+
+    private static String manifestKey(String key) {
+        return TILES_DIR + "/" + key + "/" + MANIFEST_FILE;
+    }
+}
@@ -0,0 +1,58 @@
+package com.spherelink.service;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import com.spherelink.model.ViewData;
+
+/**
+ * Published when a view is created, updated, deleted or rated, after the transaction commits,
+ * so in-memory read models and caches can follow the table. before is null for a new view and
+ * after is null for a deleted one; they carry only the fields those consumers filter on.
+ */
+public record ViewChangedEvent(UUID viewId, Change change, ViewState before, ViewState after) {
+
+    public enum Change {
+        CREATED, UPDATED, DELETED, RATED
+    }
+
+    // Two equal states mean the view kept its place in every listing
+    public record ViewState(boolean isPublic, Double latitude, Double longitude, String searchText,
+            LocalDateTime dateTime, Double averageRating) {
+
+        public static ViewState of(ViewData view) {
+            String searchText = String.join(" ", String.valueOf(view.getViewName()), String.valueOf(view.getCityName()),
+                    String.valueOf(view.getcreatorName()));
+            return new ViewState(view.isPublic(), view.getLatitude(), view.getLongitude(), searchText,
+                    view.getDateTime(), view.getAverageRating());
+        }
+
+        public boolean isLocated() {
+            return latitude != null && longitude != null;
+        }
+    }
+
+    public static ViewChangedEvent created(ViewData view) {
+        return new ViewChangedEvent(view.getViewId(), Change.CREATED, null, ViewState.of(view));
+    }
+
+    public static ViewChangedEvent updated(ViewState before, ViewData view) {
+        return new ViewChangedEvent(view.getViewId(), Change.UPDATED, before, ViewState.of(view));
+    }
+
+    public static ViewChangedEvent deleted(UUID viewId, ViewState before) {
+        return new ViewChangedEvent(viewId, Change.DELETED, before, null);
+    }
+
+    public static ViewChangedEvent rated(ViewData view) {
+        ViewState state = ViewState.of(view);
+        return new ViewChangedEvent(view.getViewId(), Change.RATED, state, state);
+    }
+
+    /**
+     * Whether the view is public after the change, i.e. belongs in public read models.
+     */
+    public boolean isPublicAfter() {
+        return after != null && after.isPublic() && after.isLocated();
+    }
+}
@@ -1,42 +1,107 @@
 
 package com.spherelink.service;
 
+import com.spherelink.config.FeedConfig;
+import com.spherelink.dto.CursorPage;
+import com.spherelink.dto.PageCursor;
+import com.spherelink.dto.RatingDistribution;
+import com.spherelink.dto.ViewCard;
 import com.spherelink.model.PanoramaImage;
 import com.spherelink.model.Rating;
 import com.spherelink.model.ViewData;
 import com.spherelink.repository.RatingRepository;
 import com.spherelink.repository.ViewRepository;
+import com.spherelink.repository.ViewRepositoryCustom;
+import com.spherelink.service.ViewSpatialIndex.Hit;
 import com.spherelink.exception.ResourceNotFoundException;
 import org.hibernate.Hibernate;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Optional;
+import java.util.Locale;
+import java.util.Map;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 @Service
 public class ViewService {
 
+	private static final String RATINGS_ORDERING = "ratings";
+	// Cursors from the in-memory index carry kilometres, not the database's sort key
+	private static final String INDEXED_NEARBY_ORDERING = "nearby_indexed";
+
 	@Autowired
 	private ViewRepository viewRepository;
 
 	@Autowired
 	private RatingRepository ratingRepository;
 
+	@Autowired
+	private TilePyramidService tilePyramidService;
+
+	@Autowired
+	private RenditionService renditionService;
+
+	@Autowired
+	private FeedConfig feedConfig;
+
+	@Autowired
+	private ApplicationEventPublisher eventPublisher;
+
+	@Autowired
+	private FeedCache feedCache;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	// Identical concurrent detail requests (a shared link going around) share one graph load
+	private SingleFlight<UUID, ViewData> detailLoads;
+
+	@Autowired
+	private RatingAggregates ratingAggregates;
+
+	// Only present when app.ratings.write-behind.enabled is set
+	@Autowired(required = false)
+	private RatingWriteBehind ratingWriteBehind;
+
+	// Only present when app.feed.spatial-index.enabled is set
+	@Autowired(required = false)
+	private ViewSpatialIndex spatialIndex;
+
+	@PostConstruct
+	void createDetailLoads() {
+		detailLoads = new SingleFlight<>("view-detail", feedConfig.getCache().getCoalesceTimeout(), meterRegistry);
+	}
+
 	public ViewData saveView(ViewData view) {
 		if (view.getDateTime() == null) {
 			view.setDateTime(LocalDateTime.now());
 		}
-		return viewRepository.save(view);
+		ViewData saved = viewRepository.save(view);
+		tilePyramidService.schedule(saved.getPanoramaImages());
+		renditionService.schedule(saved);
+		eventPublisher.publishEvent(ViewChangedEvent.created(saved));
+		return saved;
 	}
 
 	@Transactional(readOnly = true)
 	public List<ViewData> getViewsByUserId(UUID userId) {
 		List<ViewData> views = viewRepository.findByUserId(userId);
+		// The first initialize on each level loads that level for all views in one subselect query
 		views.forEach(view -> {
 			Hibernate.initialize(view.getPanoramaImages());
 			if (view.getPanoramaImages() != null) {
@@ -51,6 +116,43 @@ public class ViewService {
 		return views;
 	}
 
+	/**
+	 * Version stamps of a user's views, in view id order, for an ETag that needs no graph load.
+	 */
+	@Transactional(readOnly = true)
+	public List<ViewRepository.ViewVersion> getViewVersions(UUID userId) {
+		return viewRepository.findVersionsByUserId(userId);
+	}
+
+	/**
+	 * Version stamp of a view the requester may see (public, or their own; requesterId is null
+	 * for anonymous requests). Hidden views are reported as missing.
+	 */
+	@Transactional(readOnly = true)
+	public ViewRepository.ViewVersion getVisibleViewVersion(UUID viewId, UUID requesterId) {
+		return viewRepository.findVersionById(viewId)
+				.filter(version -> version.isPublicView() || version.getUserId().equals(requesterId))
+				.orElseThrow(() -> new ResourceNotFoundException("View not found with ID: " + viewId));
+	}
+
+	/**
+	 * Full graph of a view the requester may see, in three queries whatever its size. The
+	 * detached graph may be shared with concurrent callers, so it must not be modified.
+	 */
+	public ViewData getViewDetail(UUID viewId, UUID requesterId) {
+		ViewData view = detailLoads.execute(viewId, () -> transactionTemplate.execute(status -> {
+			ViewData loaded = viewRepository.findWithPanoramasById(viewId)
+					.orElseThrow(() -> new ResourceNotFoundException("View not found with ID: " + viewId));
+			viewRepository.fetchMarkersByViewId(viewId);
+			viewRepository.fetchBannerImagesByViewId(viewId);
+			return loaded;
+		}));
+		if (!view.isPublic() && !view.getUserId().equals(requesterId)) {
+			throw new ResourceNotFoundException("View not found with ID: " + viewId);
+		}
+		return view;
+	}
+
 	@Transactional(readOnly = true)
 	public ViewData getViewById(UUID viewId) {
 		ViewData view = viewRepository.findById(viewId)
@@ -69,77 +171,187 @@ public class ViewService {
 
 	@Transactional
 	public void deleteView(UUID viewId) {
-		if (!viewRepository.existsById(viewId)) {
-			throw new ResourceNotFoundException("View not found with ID: " + viewId);
-		}
-		viewRepository.deleteById(viewId);
+		ViewData existing = viewRepository.findById(viewId)
+				.orElseThrow(() -> new ResourceNotFoundException("View not found with ID: " + viewId));
+		ViewChangedEvent.ViewState before = ViewChangedEvent.ViewState.of(existing);
+		viewRepository.delete(existing);
+		eventPublisher.publishEvent(ViewChangedEvent.deleted(viewId, before));
 	}
 
 	@Transactional
 	public ViewData updateView(ViewData view) {
-		if (!viewRepository.existsById(view.getViewId())) {
-			throw new ResourceNotFoundException("View not found with ID: " + view.getViewId());
+		// Captured before save(), which merges the new values into this managed instance
+		ViewChangedEvent.ViewState before = viewRepository.findById(view.getViewId())
+				.map(ViewChangedEvent.ViewState::of)
+				.orElseThrow(() -> new ResourceNotFoundException("View not found with ID: " + view.getViewId()));
+		ViewData saved = viewRepository.save(view);
+		tilePyramidService.schedule(saved.getPanoramaImages());
+		renditionService.schedule(saved);
+		eventPublisher.publishEvent(ViewChangedEvent.updated(before, saved));
+		return saved;
+	}
+
+	// Feed cards are read-only projections, no entities or transaction involved
+	public Page<ViewCard> getPublicViews(int page, int size, String query, String filter, Double latitude,
+			Double longitude, Double radiusKm) {
+		boolean nearby = isNearby(filter, query, latitude, longitude);
+		Double lat = nearby ? feedCache.roundCoordinate(latitude) : latitude;
+		Double lon = nearby ? feedCache.roundCoordinate(longitude) : longitude;
+		double radius = nearbyRadius(radiusKm);
+		FeedCacheKey key = cacheKey("offset", filter, query, lat, lon, nearby ? radius : null, Integer.toString(page),
+				size);
+		return feedCache.get(key, () -> loadPublicViews(page, size, query, filter, lat, lon, radius), Page::getContent);
+	}
+
+	/**
+	 * Keyset-paged feed: the page after the given cursor (null or blank for the first page).
+	 */
+	public CursorPage<ViewCard> getPublicViewsAfter(String cursor, int size, String query, String filter,
+			Double latitude, Double longitude, Double radiusKm) {
+		boolean nearby = isNearby(filter, query, latitude, longitude);
+		Double lat = nearby ? feedCache.roundCoordinate(latitude) : latitude;
+		Double lon = nearby ? feedCache.roundCoordinate(longitude) : longitude;
+		double radius = nearbyRadius(radiusKm);
+		String position = cursor == null || cursor.isBlank() ? "" : cursor;
+		FeedCacheKey key = cacheKey("cursor", filter, query, lat, lon, nearby ? radius : null, position, size);
+		return feedCache.get(key, () -> loadPublicViewsAfter(cursor, size, query, filter, lat, lon, radius),
+				CursorPage::items);
+	}
+
+	private Page<ViewCard> loadPublicViews(int page, int size, String query, String filter, Double latitude,
+			Double longitude, double radiusKm) {
+		if (useSpatialIndex(query, filter, latitude, longitude)) {
+			List<Hit> hits = spatialIndex.withinRadius(latitude, longitude, radiusKm);
+			PageRequest pageable = PageRequest.of(page - 1, size);
+			int from = (int) Math.min(pageable.getOffset(), hits.size());
+			List<ViewCard> cards = cardsFor(hits.subList(from, Math.min(from + size, hits.size())));
+			return new PageImpl<>(cards, pageable, hits.size());
 		}
-		return viewRepository.save(view);
+		return viewRepository.findPublicCards(query, filter, latitude, longitude, radiusKm,
+				PageRequest.of(page - 1, size));
 	}
 
-	@Transactional(readOnly = true)
-	public Page<ViewData> getPublicViews(int page, int size, String query, String filter, Double latitude,
-	        Double longitude) {
-	    PageRequest pageable = PageRequest.of(page - 1, size);
-	    Page<ViewData> views;
-	    if (filter.equals("nearby") && latitude != null && longitude != null) {
-	        views = viewRepository.findNearbyViews(query, latitude, longitude, 10.0, pageable);
-	    } else if (filter.equals("recent")) {
-	        views = viewRepository.findPublicViewsRecent(query, pageable);
-	    } else if (filter.equals("most_rated")) {
-	        views = viewRepository.findPublicViewsMostRated(query, pageable);
-	    } else {
-	        views = viewRepository.findPublicViewsAll(query, pageable);
-	    }
-	    views.getContent().forEach(view -> {
-	        Hibernate.initialize(view.getPanoramaImages());
-	        if (view.getPanoramaImages() != null) {
-	            view.getPanoramaImages().forEach(pano -> {
-	                Hibernate.initialize(pano.getMarkers());
-	                if (pano.getMarkers() != null) {
-	                    pano.getMarkers().forEach(marker -> Hibernate.initialize(marker.getMarkerBannerImages()));
-	                }
-	            });
-	        }
-	        Hibernate.initialize(view.getRatings());
-	    });
-	    return views;
+	private CursorPage<ViewCard> loadPublicViewsAfter(String cursor, int size, String query, String filter,
+			Double latitude, Double longitude, double radiusKm) {
+		if (useSpatialIndex(query, filter, latitude, longitude)) {
+			PageCursor after = cursor == null || cursor.isBlank() ? null
+					: PageCursor.decode(cursor, INDEXED_NEARBY_ORDERING);
+			List<Hit> hits = spatialIndex.withinRadius(latitude, longitude, radiusKm);
+			int from = after == null ? 0 : positionAfter(hits, after);
+			int to = Math.min(from + size, hits.size());
+			String next = null;
+			if (to < hits.size()) {
+				Hit last = hits.get(to - 1);
+				next = new PageCursor(INDEXED_NEARBY_ORDERING, Double.toString(last.distanceKm()), last.viewId())
+						.encode();
+			}
+			return new CursorPage<>(cardsFor(hits.subList(from, to)), next);
+		}
+		String ordering = ViewRepositoryCustom.orderingOf(filter, query, latitude, longitude);
+		PageCursor after = cursor == null || cursor.isBlank() ? null : PageCursor.decode(cursor, ordering);
+		return viewRepository.findPublicCardsAfter(query, filter, latitude, longitude, radiusKm, after, size);
 	}
 
-	@Transactional
+	private static boolean isNearby(String filter, String query, Double latitude, Double longitude) {
+		return ViewRepositoryCustom.NEARBY.equals(ViewRepositoryCustom.orderingOf(filter, query, latitude, longitude));
+	}
+
+	// Coordinates only tell requests apart for nearby; elsewhere they do not change the page
+	private static FeedCacheKey cacheKey(String mode, String filter, String query, Double latitude, Double longitude,
+			Double radiusKm, String position, int size) {
+		String term = ViewRepositoryCustom.searchTerm(query);
+		return new FeedCacheKey(mode, filter, term == null ? null : term.toLowerCase(Locale.ROOT),
+				radiusKm == null ? null : latitude, radiusKm == null ? null : longitude, radiusKm, position, size);
+	}
+
+	/**
+	 * The limit public views nearest to a point, however far away they are.
+	 */
+	public List<ViewCard> getNearestViews(double latitude, double longitude, int limit) {
+		if (spatialIndex != null && spatialIndex.isReady()) {
+			return cardsFor(spatialIndex.nearest(latitude, longitude, limit));
+		}
+		return viewRepository.findNearestPublicCards(latitude, longitude, limit);
+	}
+
+	// The in-memory index knows locations only, so searches still go to the database
+	private boolean useSpatialIndex(String query, String filter, Double latitude, Double longitude) {
+		return spatialIndex != null && spatialIndex.isReady() && isNearby(filter, query, latitude, longitude)
+				&& ViewRepositoryCustom.searchTerm(query) == null;
+	}
+
+	// Cards in the order of the hits; views made private or deleted since the index saw them drop out
+	private List<ViewCard> cardsFor(List<Hit> hits) {
+		Map<UUID, ViewCard> cards = viewRepository.findPublicCardsByIds(hits.stream().map(Hit::viewId).toList())
+				.stream()
+				.collect(Collectors.toMap(ViewCard::viewId, card -> card));
+		return hits.stream()
+				.filter(hit -> cards.containsKey(hit.viewId()))
+				.map(hit -> cards.get(hit.viewId()).withDistanceKm(hit.distanceKm()))
+				.toList();
+	}
+
+	private static int positionAfter(List<Hit> hits, PageCursor after) {
+		double distance = Double.parseDouble(after.key());
+		for (int i = 0; i < hits.size(); i++) {
+			Hit hit = hits.get(i);
+			int cmp = Double.compare(hit.distanceKm(), distance);
+			if (cmp > 0 || (cmp == 0 && hit.viewId().compareTo(after.id()) > 0)) {
+				return i;
+			}
+		}
+		return hits.size();
+	}
+
+	private double nearbyRadius(Double radiusKm) {
+		if (radiusKm == null) {
+			return feedConfig.getDefaultRadiusKm();
+		}
+		if (!(radiusKm > 0) || radiusKm > feedConfig.getMaxRadiusKm()) {
+			throw new IllegalArgumentException("radiusKm must be between 0 and " + feedConfig.getMaxRadiusKm());
+		}
+		return radiusKm;
+	}
+
+	// Not @Transactional itself: the write-behind path must not hold a connection while it waits
 	public boolean addRating(UUID viewId, Integer stars, String comment, UUID userId) {
 		// Validate stars (1 to 5)
 		if (stars < 1 || stars > 5) {
 			return false;
 		}
-
-		// Find the view
-		Optional<ViewData> viewOptional = viewRepository.findById(viewId);
-		if (viewOptional.isEmpty()) {
+		// Checked up front so an oversized comment cannot fail a whole write-behind batch
+		if (comment != null && comment.length() > Rating.MAX_COMMENT_LENGTH) {
 			return false;
 		}
 
-		ViewData view = viewOptional.get();
-		Hibernate.initialize(view.getRatings());
-		
-		// Create a new rating
+		if (ratingWriteBehind != null) {
+			if (!viewRepository.existsById(viewId)) {
+				throw new ResourceNotFoundException("View not found with ID: " + viewId);
+			}
+			if (ratingWriteBehind.submit(viewId, stars, comment, userId)) {
+				return true;
+			}
+			// Queue full or shutting down: written synchronously below
+		}
+		return Boolean.TRUE.equals(transactionTemplate.execute(status -> addRatingNow(viewId, stars, comment, userId)));
+	}
+
+	private boolean addRatingNow(UUID viewId, int stars, String comment, UUID userId) {
+		// One row-locked UPDATE; concurrent raters queue on the row instead of overwriting each other
+		if (!ratingAggregates.add(viewId, stars)) {
+			throw new ResourceNotFoundException("View not found with ID: " + viewId);
+		}
+		// Read back by primary key for the event; the ratings collection is never touched
+		ViewData view = viewRepository.findById(viewId).orElseThrow();
+
 		Rating rating = new Rating();
 		rating.setStars(stars);
 		rating.setComment(comment);
 		rating.setUserId(userId);
 		rating.setView(view);
-
-		// Save the rating
 		ratingRepository.save(rating);
 
-		view.calculateAverageRating();
-		viewRepository.save(view);
+		eventPublisher.publishEvent(ViewChangedEvent.rated(view));
 
 		return true;
 	}
@@ -149,4 +361,48 @@ public class ViewService {
 	    PageRequest pageable = PageRequest.of(page, size);
 	    return ratingRepository.findByViewId(viewId, pageable);
 	}
+
+	/**
+	 * Star histogram and scores of a view, straight from its row; no ratings are read. Same
+	 * visibility as {@link #getVisibleViewVersion(UUID, UUID)}: hidden views are reported as missing.
+	 */
+	@Transactional(readOnly = true)
+	public RatingDistribution getRatingDistribution(UUID viewId, UUID requesterId) {
+		ViewRepository.RatingHistogram histogram = viewRepository.findRatingHistogramById(viewId)
+				.filter(row -> row.isPublicView() || row.getUserId().equals(requesterId))
+				.orElseThrow(() -> new ResourceNotFoundException("View not found with ID: " + viewId));
+		Map<Integer, Long> stars = new LinkedHashMap<>();
+		stars.put(1, histogram.getStars1());
+		stars.put(2, histogram.getStars2());
+		stars.put(3, histogram.getStars3());
+		stars.put(4, histogram.getStars4());
+		stars.put(5, histogram.getStars5());
+		Double average = histogram.getAverageRating();
+		return new RatingDistribution(histogram.getRatingCount(), average == null ? 0.0 : average,
+				histogram.getRatingScore(), stars);
+	}
+
+	@Transactional(readOnly = true)
+	public CursorPage<Rating> getRatingsAfter(UUID viewId, String cursor, int size) {
+		PageRequest limit = PageRequest.of(0, size + 1);
+		List<Rating> rows;
+		if (cursor == null || cursor.isBlank()) {
+			rows = ratingRepository.findFirstPage(viewId, limit);
+		} else {
+			PageCursor after = PageCursor.decode(cursor, RATINGS_ORDERING);
+			LocalDateTime createdAt;
+			try {
+				createdAt = LocalDateTime.parse(after.key());
+			} catch (DateTimeParseException | NullPointerException e) {
+				throw new IllegalArgumentException("Malformed cursor");
+			}
+			rows = ratingRepository.findPageAfter(viewId, createdAt, after.id(), limit);
+		}
+		if (rows.size() <= size) {
+			return new CursorPage<>(rows, null);
+		}
+		Rating last = rows.get(size - 1);
+		String next = new PageCursor(RATINGS_ORDERING, last.getCreatedAt().toString(), last.getRatingId()).encode();
+		return new CursorPage<>(rows.subList(0, size), next);
+	}
 }
\ No newline at end of file
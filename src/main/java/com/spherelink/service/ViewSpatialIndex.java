@@ -0,0 +1,276 @@
+package com.spherelink.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.StampedLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.spherelink.config.FeedConfig;
+
+/**
+ * In-memory grid of every public view's location, for nearby and nearest queries that need no
+ * database round trip. The grid is split into fixed-size cells of latitude and longitude, and
+ * each cell keeps its points in parallel primitive arrays. A radius query scans only the cells
+ * that its bounding box touches. The grid is loaded once at startup and then kept current
+ * through ViewChangedEvent.
+ */
+@Service
+@ConditionalOnProperty(name = "app.feed.spatial-index.enabled", havingValue = "true")
+public class ViewSpatialIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(ViewSpatialIndex.class);
+
+    private static final double EARTH_RADIUS_KM = 6371.0088;
+    private static final double KM_PER_DEGREE = Math.PI * EARTH_RADIUS_KM / 180;
+    // Any radius this large covers the whole globe
+    private static final double HALF_CIRCUMFERENCE_KM = Math.PI * EARTH_RADIUS_KM;
+
+    private static final Comparator<Hit> NEAREST_FIRST =
+            Comparator.comparingDouble(Hit::distanceKm).thenComparing(Hit::viewId);
+
+    public record Hit(UUID viewId, double distanceKm) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final double cellDegrees;
+    private final int rows;
+    private final int columns;
+
+    // Both maps are guarded by lock
+    private final StampedLock lock = new StampedLock();
+    private final Map<Long, Cell> cells = new HashMap<>();
+    private final Map<UUID, Long> cellOfView = new HashMap<>();
+
+    // Views changed while the initial load streams rows; the load must not overwrite them
+    private final Set<UUID> changedDuringLoad = ConcurrentHashMap.newKeySet();
+    private volatile boolean loading = true;
+    private volatile boolean ready;
+
+    public ViewSpatialIndex(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+            FeedConfig feedConfig) {
+        // Own template so the fetch size does not leak into the shared one; Postgres only streams
+        // rows in fetch-size batches inside a transaction
+        this.jdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.jdbcTemplate.setFetchSize(10_000);
+        this.transactionTemplate = transactionTemplate;
+        this.cellDegrees = feedConfig.getSpatialIndex().getCellDegrees();
+        this.rows = (int) Math.ceil(180 / cellDegrees);
+        this.columns = (int) Math.ceil(360 / cellDegrees);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long startedAt = System.currentTimeMillis();
+        int[] loaded = { 0 };
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(
+                "SELECT view_id, latitude, longitude FROM views WHERE is_public = true", rs -> {
+                    UUID viewId = rs.getObject("view_id", UUID.class);
+                    if (!changedDuringLoad.contains(viewId)) {
+                        put(viewId, rs.getDouble("latitude"), rs.getDouble("longitude"));
+                        loaded[0]++;
+                    }
+                }));
+        loading = false;
+        changedDuringLoad.clear();
+        ready = true;
+        logger.info("Spatial index loaded {} public views into {} cells in {} ms", loaded[0], cellCount(),
+                System.currentTimeMillis() - startedAt);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onViewChanged(ViewChangedEvent event) {
+        if (loading) {
+            changedDuringLoad.add(event.viewId());
+        }
+        if (event.change() == ViewChangedEvent.Change.RATED) {
+            return;
+        }
+        if (event.isPublicAfter()) {
+            put(event.viewId(), event.after().latitude(), event.after().longitude());
+        } else {
+            remove(event.viewId());
+        }
+    }
+
+    /**
+     * Public views within radiusKm of the point, nearest first.
+     */
+    public List<Hit> withinRadius(double latitude, double longitude, double radiusKm) {
+        List<Hit> hits = new ArrayList<>();
+        double latDelta = radiusKm / KM_PER_DEGREE;
+        int rowFrom = row(Math.max(-90, latitude - latDelta));
+        int rowTo = row(Math.min(90, latitude + latDelta));
+        // Longitude degrees shrink towards the poles, so size the box for the latitude nearest one
+        double widestLatitude = Math.min(90, Math.abs(latitude) + latDelta);
+        double lonDelta = widestLatitude >= 89.9 ? 180 : latDelta / Math.cos(Math.toRadians(widestLatitude));
+        int colFrom = (int) Math.floor((longitude - lonDelta + 180) / cellDegrees);
+        int colTo = (int) Math.floor((longitude + lonDelta + 180) / cellDegrees);
+        if (lonDelta >= 180 || colTo - colFrom + 1 >= columns) {
+            colFrom = 0;
+            colTo = columns - 1;
+        }
+
+        long stamp = lock.readLock();
+        try {
+            for (int r = rowFrom; r <= rowTo; r++) {
+                for (int c = colFrom; c <= colTo; c++) {
+                    // Boxes crossing the antimeridian wrap around to the other edge of the grid
+                    Cell cell = cells.get(cellKey(r, Math.floorMod(c, columns)));
+                    if (cell != null) {
+                        cell.collect(latitude, longitude, radiusKm, hits);
+                    }
+                }
+            }
+        } finally {
+            lock.unlockRead(stamp);
+        }
+        hits.sort(NEAREST_FIRST);
+        return hits;
+    }
+
+    /**
+     * The k public views nearest to the point, nearest first. Searches a radius that doubles
+     * until it holds k views, and every view inside a radius is nearer than those outside it.
+     */
+    public List<Hit> nearest(double latitude, double longitude, int k) {
+        double radiusKm = cellDegrees * KM_PER_DEGREE;
+        List<Hit> hits = withinRadius(latitude, longitude, radiusKm);
+        while (hits.size() < k && radiusKm < HALF_CIRCUMFERENCE_KM) {
+            radiusKm *= 2;
+            hits = withinRadius(latitude, longitude, radiusKm);
+        }
+        return hits.size() > k ? hits.subList(0, k) : hits;
+    }
+
+    private void put(UUID viewId, double latitude, double longitude) {
+        long key = cellKey(row(latitude), column(longitude));
+        long stamp = lock.writeLock();
+        try {
+            Long previous = cellOfView.put(viewId, key);
+            if (previous != null) {
+                removeFromCell(previous, viewId);
+            }
+            cells.computeIfAbsent(key, k -> new Cell()).add(viewId, latitude, longitude);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private void remove(UUID viewId) {
+        long stamp = lock.writeLock();
+        try {
+            Long previous = cellOfView.remove(viewId);
+            if (previous != null) {
+                removeFromCell(previous, viewId);
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private void removeFromCell(long key, UUID viewId) {
+        Cell cell = cells.get(key);
+        if (cell != null && cell.remove(viewId) && cell.size == 0) {
+            cells.remove(key);
+        }
+    }
+
+    private int cellCount() {
+        long stamp = lock.readLock();
+        try {
+            return cells.size();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private int row(double latitude) {
+        return Math.min(rows - 1, (int) Math.floor((latitude + 90) / cellDegrees));
+    }
+
+    private int column(double longitude) {
+        return Math.floorMod((int) Math.floor((longitude + 180) / cellDegrees), columns);
+    }
+
+    private long cellKey(int row, int column) {
+        return (long) row * columns + column;
+    }
+
+    static double haversineKm(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    // Points of one cell in parallel arrays; removal swaps the last point into the gap
+    private static final class Cell {
+        private double[] latitudes = new double[4];
+        private double[] longitudes = new double[4];
+        private long[] idHigh = new long[4];
+        private long[] idLow = new long[4];
+        private int size;
+
+        void add(UUID viewId, double latitude, double longitude) {
+            if (size == latitudes.length) {
+                int capacity = size * 2;
+                latitudes = Arrays.copyOf(latitudes, capacity);
+                longitudes = Arrays.copyOf(longitudes, capacity);
+                idHigh = Arrays.copyOf(idHigh, capacity);
+                idLow = Arrays.copyOf(idLow, capacity);
+            }
+            latitudes[size] = latitude;
+            longitudes[size] = longitude;
+            idHigh[size] = viewId.getMostSignificantBits();
+            idLow[size] = viewId.getLeastSignificantBits();
+            size++;
+        }
+
+        boolean remove(UUID viewId) {
+            long high = viewId.getMostSignificantBits();
+            long low = viewId.getLeastSignificantBits();
+            for (int i = 0; i < size; i++) {
+                if (idHigh[i] == high && idLow[i] == low) {
+                    size--;
+                    latitudes[i] = latitudes[size];
+                    longitudes[i] = longitudes[size];
+                    idHigh[i] = idHigh[size];
+                    idLow[i] = idLow[size];
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        void collect(double latitude, double longitude, double radiusKm, List<Hit> hits) {
+            for (int i = 0; i < size; i++) {
+                double distance = haversineKm(latitude, longitude, latitudes[i], longitudes[i]);
+                if (distance < radiusKm) {
+                    hits.add(new Hit(new UUID(idHigh[i], idLow[i]), distance));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.spherelink.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import com.spherelink.model.Marker;
+import com.spherelink.model.MarkerBannerImage;
+import com.spherelink.model.PanoramaImage;
+import com.spherelink.model.ViewData;
+
+/**
+ * Collects the pieces of a multipart view upload (metadata, panorama fields and stored file
+ * paths) in whatever order they arrive, then assembles the ViewData graph once all are known.
+ */
+public class ViewUpload {
+
+    private ViewData viewData;
+    private String thumbnailPath;
+    private final Map<Integer, String> imageNames = new HashMap<>();
+    private final Map<Integer, List<Marker>> markers = new HashMap<>();
+    private final Map<Integer, String> panoramaPaths = new HashMap<>();
+    private final Map<String, String> bannerPaths = new HashMap<>();
+    private final List<String> storedPaths = new ArrayList<>();
+    private final List<UUID> claimedUploads = new ArrayList<>();
+
+    public void setViewData(ViewData viewData) {
+        this.viewData = viewData;
+    }
+
+    public ViewData getViewData() {
+        return viewData;
+    }
+
+    public void setThumbnailPath(String thumbnailPath) {
+        this.thumbnailPath = thumbnailPath;
+        storedPaths.add(thumbnailPath);
+    }
+
+    // Thumbnail stored earlier through a resumable upload; not removed if this upload fails
+    public void referenceThumbnailPath(UUID uploadId, String thumbnailPath) {
+        this.thumbnailPath = thumbnailPath;
+        claimedUploads.add(uploadId);
+    }
+
+    public void setImageName(int panoramaIndex, String imageName) {
+        imageNames.put(panoramaIndex, imageName);
+    }
+
+    public void setMarkers(int panoramaIndex, List<Marker> markerList) {
+        markers.put(panoramaIndex, markerList);
+    }
+
+    public void setPanoramaPath(int panoramaIndex, String path) {
+        panoramaPaths.put(panoramaIndex, path);
+        storedPaths.add(path);
+    }
+
+    // Panorama stored earlier through a resumable upload; not removed if this upload fails
+    public void referencePanoramaPath(int panoramaIndex, UUID uploadId, String path) {
+        panoramaPaths.put(panoramaIndex, path);
+        claimedUploads.add(uploadId);
+    }
+
+    public void setBannerPath(int panoramaIndex, int markerIndex, int bannerIndex, String path) {
+        bannerPaths.put(bannerKey(panoramaIndex, markerIndex, bannerIndex), path);
+        storedPaths.add(path);
+    }
+
+    /**
+     * Paths of every file stored for this upload so far, for cleanup when the upload fails.
+     */
+    public List<String> getStoredPaths() {
+        return Collections.unmodifiableList(storedPaths);
+    }
+
+    /**
+     * Resumable uploads claimed by this upload, to be released again when the upload fails.
+     */
+    public List<UUID> getClaimedUploads() {
+        return Collections.unmodifiableList(claimedUploads);
+    }
+
+    public ViewData assemble() {
+        if (viewData == null) {
+            throw new IllegalStateException("View upload is missing its metadata");
+        }
+        viewData.setThumbnailImagePath(thumbnailPath);
+
+        Set<PanoramaImage> panoramaImages = new HashSet<>();
+        int i = 0;
+        while (imageNames.containsKey(i)) {
+            PanoramaImage panorama = new PanoramaImage();
+            panorama.setView(viewData);
+            panorama.setImageName(imageNames.get(i));
+            if (panoramaPaths.containsKey(i)) {
+                panorama.setImagePath(panoramaPaths.get(i));
+            }
+
+            List<Marker> markerList = markers.getOrDefault(i, Collections.emptyList());
+            Set<Marker> markerSet = new HashSet<>(markerList);
+
+            for (int j = 0; j < markerList.size(); j++) {
+                Marker marker = markerList.get(j);
+                int bannerIndex = 0;
+                while (bannerPaths.containsKey(bannerKey(i, j, bannerIndex))) {
+                    MarkerBannerImage markerBannerImage = new MarkerBannerImage();
+                    markerBannerImage.setImagePath(bannerPaths.get(bannerKey(i, j, bannerIndex)));
+                    marker.addMarkerBannerImage(markerBannerImage);
+                    bannerIndex++;
+                }
+            }
+
+            markerSet.forEach(marker -> marker.setPanoramaImage(panorama));
+            panorama.setMarkers(markerSet);
+            panoramaImages.add(panorama);
+            i++;
+        }
+        viewData.setPanoramaImages(panoramaImages);
+        return viewData;
+    }
+
+    private static String bannerKey(int panoramaIndex, int markerIndex, int bannerIndex) {
+        return panoramaIndex + "_" + markerIndex + "_" + bannerIndex;
+    }
+}
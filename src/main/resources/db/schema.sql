@@ -0,0 +1,52 @@
+-- Runs on every startup after Hibernate has updated the tables (spring.jpa.defer-datasource-initialization),
+-- for what @Table indexes cannot express. Every statement must be idempotent.
+
+-- Keyset paging of the most_rated feed orders by this exact expression
+DROP INDEX IF EXISTS idx_views_public_rated;
+CREATE INDEX IF NOT EXISTS idx_views_public_score ON views ((COALESCE(rating_score, 0)), view_id) WHERE is_public;
+
+-- Feed search. search_text backs substring matches through a trigram index; search_vector backs
+-- word-prefix matches and relevance ranking, with names weighted above cities above creators.
+-- Both are generated columns, so every write through Hibernate keeps them current.
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+ALTER TABLE views ADD COLUMN IF NOT EXISTS search_text text GENERATED ALWAYS AS (
+    COALESCE(view_name, '') || ' ' || COALESCE(city_name, '') || ' ' || COALESCE(creator_name, '')) STORED;
+
+ALTER TABLE views ADD COLUMN IF NOT EXISTS search_vector tsvector GENERATED ALWAYS AS (
+    setweight(to_tsvector('simple'::regconfig, COALESCE(view_name, '')), 'A')
+    || setweight(to_tsvector('simple'::regconfig, COALESCE(city_name, '')), 'B')
+    || setweight(to_tsvector('simple'::regconfig, COALESCE(creator_name, '')), 'C')) STORED;
+
+CREATE INDEX IF NOT EXISTS idx_views_search_trgm ON views USING gin (search_text gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_views_search_vector ON views USING gin (search_vector);
+
+-- Nearby filter: earth_box prefilter and nearest-first ordering both run on this index
+CREATE EXTENSION IF NOT EXISTS cube;
+CREATE EXTENSION IF NOT EXISTS earthdistance;
+
+CREATE INDEX IF NOT EXISTS idx_views_public_location ON views USING gist (ll_to_earth(latitude, longitude)) WHERE is_public;
+
+-- Rating aggregates for views rated before rating_count/rating_sum existed. Views already counted
+-- are skipped, so after the first run this only looks at unrated views. The average is recomputed
+-- from all ratings, which also corrects averages that used to leave out the newest rating.
+UPDATE views v SET rating_count = s.rating_count, rating_sum = s.rating_sum,
+    average_rating = s.rating_sum::double precision / s.rating_count
+FROM (SELECT r.view_id, count(*) AS rating_count, sum(r.stars) AS rating_sum
+      FROM ratings r JOIN views w ON w.view_id = r.view_id AND w.rating_count = 0
+      GROUP BY r.view_id) s
+WHERE v.view_id = s.view_id;
+
+-- Star histograms for views rated before stars_1..stars_5 existed. Only rated views with an empty
+-- histogram are touched, which after the first run are none. rating_score is filled in at startup
+-- by RatingAggregates, since it depends on the configured priors.
+UPDATE views v SET stars_1 = s.stars_1, stars_2 = s.stars_2, stars_3 = s.stars_3, stars_4 = s.stars_4,
+    stars_5 = s.stars_5
+FROM (SELECT r.view_id,
+          count(*) FILTER (WHERE r.stars = 1) AS stars_1, count(*) FILTER (WHERE r.stars = 2) AS stars_2,
+          count(*) FILTER (WHERE r.stars = 3) AS stars_3, count(*) FILTER (WHERE r.stars = 4) AS stars_4,
+          count(*) FILTER (WHERE r.stars = 5) AS stars_5
+      FROM ratings r JOIN views w ON w.view_id = r.view_id AND w.rating_count > 0
+          AND w.stars_1 + w.stars_2 + w.stars_3 + w.stars_4 + w.stars_5 = 0
+      GROUP BY r.view_id) s
+WHERE v.view_id = s.view_id;
@@ -0,0 +1,256 @@
+package com.spherelink.benchmark;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.DeserializationConfig;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.KeyDeserializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationConfig;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.cfg.HandlerInstantiator;
+import com.fasterxml.jackson.databind.cfg.MapperConfig;
+import com.fasterxml.jackson.databind.introspect.Annotated;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.databind.jsontype.TypeIdResolver;
+import com.fasterxml.jackson.databind.jsontype.TypeResolverBuilder;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.spherelink.model.Marker;
+import com.spherelink.model.MarkerBannerImage;
+import com.spherelink.model.PanoramaImage;
+import com.spherelink.model.ViewData;
+import com.spherelink.service.AssetUrlSerializer;
+import com.spherelink.service.LocalStorageBackend;
+import com.spherelink.service.StorageBackend;
+
+/**
+ * GET /views response for one user's tours: rewriting every asset path on the entities through
+ * setters before serialising them, as the controller used to, against AssetUrlSerializer writing
+ * the URL while the response is serialised. Paths use Windows separators, as old rows do.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AssetUrlBenchmark {
+
+    private static final int VIEWS = 10;
+    private static final int MARKERS_PER_PANORAMA = 10;
+    private static final int BANNERS_PER_MARKER = 2;
+
+    @Param({ "5", "30" })
+    public int panoramasPerView;
+
+    private StorageBackend storageBackend;
+    private ObjectMapper storedPathMapper;
+    private ObjectMapper assetUrlMapper;
+    private List<ViewData> views;
+    private List<String> storedPaths;
+
+    @Setup(Level.Trial)
+    public void buildTours() {
+        LocalStorageBackend local = new LocalStorageBackend();
+        ReflectionTestUtils.setField(local, "baseUrl", "http://192.168.135.30:8080");
+        storageBackend = local;
+        // Before, paths were already URLs by the time Jackson saw them
+        storedPathMapper = mapper(new StdSerializer<String>(String.class) {
+            @Override
+            public void serialize(String path, JsonGenerator generator, SerializerProvider provider)
+                    throws IOException {
+                generator.writeString(path);
+            }
+        });
+        assetUrlMapper = mapper(new AssetUrlSerializer(storageBackend));
+
+        views = new ArrayList<>();
+        for (int v = 0; v < VIEWS; v++) {
+            views.add(tour());
+        }
+        storedPaths = new ArrayList<>();
+        forEachPath(new PathVisitor() {
+            @Override
+            public String visit(String path) {
+                storedPaths.add(path);
+                return path;
+            }
+        });
+    }
+
+    // The setter loop overwrites the paths, so each call starts again from the stored ones
+    @Setup(Level.Invocation)
+    public void restorePaths() {
+        int[] next = { 0 };
+        forEachPath(path -> storedPaths.get(next[0]++));
+    }
+
+    @Benchmark
+    public byte[] rewriteEntitiesThenSerialize() throws IOException {
+        for (ViewData view : views) {
+            view.setThumbnailImagePath(storageBackend.publicUrl(view.getThumbnailImagePath()));
+            // Not rewritten before, but the response carries it now
+            view.setCreatorProfileImagePath(storageBackend.publicUrl(view.getCreatorProfileImagePath()));
+            view.getPanoramaImages().forEach(pano -> {
+                pano.setImagePath(storageBackend.publicUrl(pano.getImagePath()));
+                pano.getMarkers().forEach(marker -> marker.getMarkerBannerImages().forEach(
+                        banner -> banner.setImagePath(storageBackend.publicUrl(banner.getImagePath()))));
+            });
+        }
+        return storedPathMapper.writeValueAsBytes(views);
+    }
+
+    @Benchmark
+    public byte[] resolveWhileSerializing() throws IOException {
+        return assetUrlMapper.writeValueAsBytes(views);
+    }
+
+    private ViewData tour() {
+        ViewData view = new ViewData();
+        view.setViewId(UUID.randomUUID());
+        view.setViewName("Old town walk");
+        view.setDescription("A walk through the old town");
+        view.setCreatorName("Creator");
+        view.setCityName("City");
+        view.setCreatorProfileImagePath(windowsPath("users_profile_pics"));
+        view.setLatitude(48.2);
+        view.setLongitude(16.37);
+        view.setThumbnailImagePath(windowsPath("users_views_pics"));
+        view.setPublic(true);
+        view.setDateTime(LocalDateTime.of(2024, 5, 1, 12, 0));
+        view.setUserId(UUID.randomUUID());
+        view.setVersion(1L);
+        // Identity sets: the entities' Lombok hashCode walks the back references
+        Set<PanoramaImage> panoramas = identitySet();
+        for (int p = 0; p < panoramasPerView; p++) {
+            PanoramaImage pano = new PanoramaImage();
+            pano.setImageId(UUID.randomUUID());
+            pano.setImageName("Panorama " + p);
+            pano.setImagePath(windowsPath("users_views_pics"));
+            pano.setView(view);
+            Set<Marker> markers = identitySet();
+            for (int m = 0; m < MARKERS_PER_PANORAMA; m++) {
+                markers.add(marker(pano));
+            }
+            pano.setMarkers(markers);
+            panoramas.add(pano);
+        }
+        view.setPanoramaImages(panoramas);
+        return view;
+    }
+
+    private Marker marker(PanoramaImage pano) {
+        Marker marker = new Marker();
+        marker.setMarkerId(UUID.randomUUID());
+        marker.setPanoramaImage(pano);
+        marker.setLatitude(0.25);
+        marker.setLongitude(1.5);
+        marker.setLabel("Fountain");
+        marker.setSelectedIconStyle("pin");
+        marker.setSelectedIcon(1L);
+        marker.setSelectedIconColor(0xff0000L);
+        marker.setSelectedIconRotationRadians(0.0);
+        marker.setSelectedAction("info");
+        Set<MarkerBannerImage> banners = identitySet();
+        for (int b = 0; b < BANNERS_PER_MARKER; b++) {
+            MarkerBannerImage banner = new MarkerBannerImage();
+            banner.setImageId(UUID.randomUUID());
+            banner.setMarker(marker);
+            banner.setImagePath(windowsPath("users_views_pics"));
+            banners.add(banner);
+        }
+        marker.setMarkerBannerImages(banners);
+        return marker;
+    }
+
+    private void forEachPath(PathVisitor visitor) {
+        for (ViewData view : views) {
+            view.setThumbnailImagePath(visitor.visit(view.getThumbnailImagePath()));
+            view.setCreatorProfileImagePath(visitor.visit(view.getCreatorProfileImagePath()));
+            for (PanoramaImage pano : view.getPanoramaImages()) {
+                pano.setImagePath(visitor.visit(pano.getImagePath()));
+                for (Marker marker : pano.getMarkers()) {
+                    for (MarkerBannerImage banner : marker.getMarkerBannerImages()) {
+                        banner.setImagePath(visitor.visit(banner.getImagePath()));
+                    }
+                }
+            }
+        }
+    }
+
+    private interface PathVisitor {
+        String visit(String path);
+    }
+
+    private static String windowsPath(String subDir) {
+        return "Uploads\\" + subDir + "\\" + UUID.randomUUID() + ".jpg";
+    }
+
+    private static <T> Set<T> identitySet() {
+        return Collections.newSetFromMap(new IdentityHashMap<>());
+    }
+
+    // Configured like Boot's mapper; hands the given serializer to every @JsonSerialize(using = AssetUrlSerializer.class) property
+    private static ObjectMapper mapper(JsonSerializer<?> pathSerializer) {
+        return JsonMapper.builder()
+                .findAndAddModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .handlerInstantiator(new HandlerInstantiator() {
+                    @Override
+                    public JsonSerializer<?> serializerInstance(SerializationConfig config, Annotated annotated,
+                            Class<?> serClass) {
+                        return serClass == AssetUrlSerializer.class ? pathSerializer : null;
+                    }
+
+                    @Override
+                    public JsonDeserializer<?> deserializerInstance(DeserializationConfig config,
+                            Annotated annotated, Class<?> deserClass) {
+                        return null;
+                    }
+
+                    @Override
+                    public KeyDeserializer keyDeserializerInstance(DeserializationConfig config,
+                            Annotated annotated, Class<?> keyDeserClass) {
+                        return null;
+                    }
+
+                    @Override
+                    public TypeResolverBuilder<?> typeResolverBuilderInstance(MapperConfig<?> config,
+                            Annotated annotated, Class<?> builderClass) {
+                        return null;
+                    }
+
+                    @Override
+                    public TypeIdResolver typeIdResolverInstance(MapperConfig<?> config, Annotated annotated,
+                            Class<?> resolverClass) {
+                        return null;
+                    }
+                })
+                .build();
+    }
+}
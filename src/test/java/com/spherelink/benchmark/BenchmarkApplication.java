@@ -0,0 +1,141 @@
+package com.spherelink.benchmark;
+
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import com.spherelink.SpringbootBackendApplication;
+
+/**
+ * The application started against a throwaway Postgres, for benchmarks that need the real schema,
+ * indexes and repositories. Postgres comes from Testcontainers unless -Dbenchmark.jdbc-url (with
+ * benchmark.jdbc-username and benchmark.jdbc-password) points at an existing database, e.g. one
+ * tuned like production. Seeding truncates the views table and everything referencing it, so such
+ * a database must also be confirmed as scratch with -Dbenchmark.jdbc-scratch=true.
+ */
+final class BenchmarkApplication implements AutoCloseable {
+
+    private static final String POSTGRES_IMAGE = "postgres:15";
+
+    // Random owners, for views nobody queries by user
+    static final String RANDOM_USER = "gen_random_uuid()";
+
+    private static final String SEED_VIEWS = "INSERT INTO views (view_id, view_name, description, creator_name, "
+            + "city_name, creator_profile_image_path, latitude, longitude, thumbnail_image, is_public, date_time, "
+            + "user_id, version) SELECT gen_random_uuid(), 'View ' || g, '', 'Creator', 'City', "
+            + "'Uploads/users_profile_pics/p.jpg', %s, %s, 'Uploads/users_views_pics/t.jpg', true, now(), %s, 0 "
+            + "FROM generate_series(1, %d) g %s";
+
+    private final PostgreSQLContainer<?> postgres;
+    private final ConfigurableApplicationContext context;
+
+    private BenchmarkApplication(PostgreSQLContainer<?> postgres, ConfigurableApplicationContext context) {
+        this.postgres = postgres;
+        this.context = context;
+    }
+
+    /**
+     * Starts the application with the given extra properties ("key=value").
+     */
+    static BenchmarkApplication start(String... properties) {
+        return start(null, properties);
+    }
+
+    /**
+     * Starts the application with its DataSource wrapped by the given counter, when there is one.
+     */
+    static BenchmarkApplication start(JdbcRowCounter rowCounter, String... properties) {
+        PostgreSQLContainer<?> postgres = null;
+        String url = System.getProperty("benchmark.jdbc-url");
+        String username = System.getProperty("benchmark.jdbc-username", "postgres");
+        String password = System.getProperty("benchmark.jdbc-password", "");
+        if (url != null && !Boolean.getBoolean("benchmark.jdbc-scratch")) {
+            throw new IllegalStateException("Benchmarks truncate the views of " + url
+                    + "; pass -Dbenchmark.jdbc-scratch=true to confirm it is a scratch database");
+        }
+        if (url == null) {
+            postgres = new PostgreSQLContainer<>(POSTGRES_IMAGE);
+            postgres.start();
+            url = postgres.getJdbcUrl();
+            username = postgres.getUsername();
+            password = postgres.getPassword();
+        }
+
+        // As command line arguments, so they override application.properties
+        List<String> args = new ArrayList<>(List.of(
+                "--spring.datasource.url=" + url,
+                "--spring.datasource.username=" + username,
+                "--spring.datasource.password=" + password,
+                "--server.port=0",
+                "--app.sweeper.enabled=false",
+                "--logging.level.org.springframework.security=WARN",
+                "--logging.level.com.spherelink.controller=INFO"));
+        for (String property : properties) {
+            args.add("--" + property);
+        }
+        try {
+            SpringApplicationBuilder builder = new SpringApplicationBuilder(SpringbootBackendApplication.class);
+            if (rowCounter != null) {
+                builder.initializers(context -> context.getBeanFactory().addBeanPostProcessor(new BeanPostProcessor() {
+                    @Override
+                    public Object postProcessAfterInitialization(Object bean, String beanName) {
+                        return bean instanceof DataSource dataSource ? rowCounter.wrap(dataSource) : bean;
+                    }
+                }));
+            }
+            ConfigurableApplicationContext context = builder.run(args.toArray(new String[0]));
+            return new BenchmarkApplication(postgres, context);
+        } catch (RuntimeException e) {
+            if (postgres != null) {
+                postgres.stop();
+            }
+            throw e;
+        }
+    }
+
+    <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    JdbcTemplate jdbc() {
+        return context.getBean(JdbcTemplate.class);
+    }
+
+    /**
+     * Replaces all views, and whatever references them, with count public views that are the same
+     * on every run. latitude, longitude and userId are SQL expressions over the row number g;
+     * join adds FROM items they may refer to. The then statements seed what hangs off the views,
+     * in the same session so their random() is repeatable too; everything is analyzed afterwards.
+     */
+    void seedViews(int count, String latitude, String longitude, String userId, String join, String... then) {
+        jdbc().execute((ConnectionCallback<Void>) connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("TRUNCATE views CASCADE");
+                statement.execute("SELECT setseed(0.42)");
+                statement.executeUpdate(String.format(SEED_VIEWS, latitude, longitude, userId, count, join));
+                for (String sql : then) {
+                    statement.execute(sql);
+                }
+                statement.execute("ANALYZE");
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public void close() {
+        context.close();
+        if (postgres != null) {
+            postgres.stop();
+        }
+    }
+}
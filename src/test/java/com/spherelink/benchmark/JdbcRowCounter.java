@@ -0,0 +1,82 @@
+package com.spherelink.benchmark;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Set;
+
+import javax.sql.DataSource;
+
+/**
+ * Counts the rows, and values (rows times columns), that result sets hand to the calling thread,
+ * for a DataSource wrapped by {@link #wrap(DataSource)}. Counts are per thread, so the
+ * application's scheduled jobs do not show up in a benchmark's numbers.
+ */
+final class JdbcRowCounter {
+
+    // Handed out by the DataSource or a connection; everything else is passed through unwrapped
+    private static final Set<Class<?>> WRAPPED = Set.of(Connection.class, Statement.class, PreparedStatement.class,
+            CallableStatement.class);
+
+    private final ThreadLocal<long[]> counts = ThreadLocal.withInitial(() -> new long[2]);
+
+    DataSource wrap(DataSource dataSource) {
+        return (DataSource) wrap(DataSource.class, dataSource);
+    }
+
+    void reset() {
+        long[] current = counts.get();
+        current[0] = 0;
+        current[1] = 0;
+    }
+
+    long rows() {
+        return counts.get()[0];
+    }
+
+    long values() {
+        return counts.get()[1];
+    }
+
+    private Object wrap(Class<?> type, Object target) {
+        return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type },
+                (proxy, method, args) -> {
+                    Object result = invoke(target, method, args);
+                    if (result instanceof ResultSet resultSet && method.getReturnType() == ResultSet.class) {
+                        return counting(resultSet);
+                    }
+                    if (result != null && WRAPPED.contains(method.getReturnType())) {
+                        return wrap(method.getReturnType(), result);
+                    }
+                    return result;
+                });
+    }
+
+    private ResultSet counting(ResultSet target) throws SQLException {
+        int columns = target.getMetaData().getColumnCount();
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[] { ResultSet.class },
+                (proxy, method, args) -> {
+                    Object result = invoke(target, method, args);
+                    if (Boolean.TRUE.equals(result) && "next".equals(method.getName())) {
+                        long[] current = counts.get();
+                        current[0]++;
+                        current[1] += columns;
+                    }
+                    return result;
+                });
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
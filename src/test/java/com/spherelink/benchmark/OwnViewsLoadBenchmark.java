@@ -0,0 +1,116 @@
+package com.spherelink.benchmark;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.spherelink.model.ViewData;
+import com.spherelink.service.ViewService;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * GET /views graph load for one user's tours, as tours grow: the single LEFT JOIN FETCH over
+ * views, panoramas, markers and banners that findByUserId used to run, against the view query
+ * plus one subselect query per level that getViewsByUserId runs now. Alongside calls per second,
+ * the aux counters report the rows and values (rows times columns) each variant read from
+ * Postgres per second, counted on the JDBC result sets of the calls themselves.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class OwnViewsLoadBenchmark extends PostgresBenchmark {
+
+    private static final int VIEWS = 10;
+    private static final int MARKERS_PER_PANORAMA = 10;
+    private static final int BANNERS_PER_MARKER = 3;
+
+    private static final String JOIN_FETCH = "SELECT v FROM ViewData v "
+            + "LEFT JOIN FETCH v.panoramaImages p "
+            + "LEFT JOIN FETCH p.markers m "
+            + "LEFT JOIN FETCH m.markerBannerImages "
+            + "WHERE v.userId = :userId";
+
+    private static final String SEED_PANORAMAS = "INSERT INTO panorama_images (image_id, image_name, image_path, "
+            + "view_id) SELECT gen_random_uuid(), 'Panorama ' || g, 'Uploads/users_views_pics/' || g || '.jpg', "
+            + "v.view_id FROM views v CROSS JOIN generate_series(1, %d) g";
+
+    private static final String SEED_MARKERS = "INSERT INTO markers (marker_id, latitude, longitude, label, "
+            + "selected_action, selected_icon, selected_icon_color, selected_icon_rotation, selected_icon_style, "
+            + "image_id) SELECT gen_random_uuid(), 0.25, 1.5, 'Marker ' || g, 'info', 1, 0, 0, 'pin', p.image_id "
+            + "FROM panorama_images p CROSS JOIN generate_series(1, " + MARKERS_PER_PANORAMA + ") g";
+
+    private static final String SEED_BANNERS = "INSERT INTO marker_banner_images (image_id, image_path, marker_id) "
+            + "SELECT gen_random_uuid(), 'Uploads/users_views_pics/b' || g || '.jpg', m.marker_id "
+            + "FROM markers m CROSS JOIN generate_series(1, " + BANNERS_PER_MARKER + ") g";
+
+    @Param({ "2", "8", "32" })
+    public int panoramasPerView;
+
+    private final JdbcRowCounter rowCounter = new JdbcRowCounter();
+    private ViewService viewService;
+    private EntityManagerFactory entityManagerFactory;
+    private TransactionTemplate readOnly;
+    private UUID userId;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Transfer {
+        public long rows;
+        public long values;
+    }
+
+    @Setup(Level.Trial)
+    public void start() {
+        application = BenchmarkApplication.start(rowCounter);
+        userId = UUID.randomUUID();
+        application.seedViews(VIEWS, "48.2", "16.37", "'" + userId + "'", "",
+                String.format(SEED_PANORAMAS, panoramasPerView), SEED_MARKERS, SEED_BANNERS);
+
+        viewService = application.bean(ViewService.class);
+        entityManagerFactory = application.bean(EntityManagerFactory.class);
+        readOnly = new TransactionTemplate(application.bean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+    }
+
+    @Benchmark
+    public List<ViewData> joinFetch(Transfer transfer) {
+        rowCounter.reset();
+        List<ViewData> views = readOnly.execute(status -> {
+            EntityManager entityManager = EntityManagerFactoryUtils.getTransactionalEntityManager(
+                    entityManagerFactory);
+            return entityManager.createQuery(JOIN_FETCH, ViewData.class)
+                    .setParameter("userId", userId)
+                    .getResultList();
+        });
+        count(transfer);
+        return views;
+    }
+
+    @Benchmark
+    public List<ViewData> subselectPerLevel(Transfer transfer) {
+        rowCounter.reset();
+        List<ViewData> views = viewService.getViewsByUserId(userId);
+        count(transfer);
+        return views;
+    }
+
+    private void count(Transfer transfer) {
+        transfer.rows += rowCounter.rows();
+        transfer.values += rowCounter.values();
+    }
+}
@@ -0,0 +1,28 @@
+package com.spherelink.benchmark;
+
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Base for benchmarks that run against the application and its Postgres. Subclasses start the
+ * application and seed it in their own trial setup, since what they seed depends on their
+ * parameters; seeding is slow, so iterations are few and long.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public abstract class PostgresBenchmark {
+
+    protected BenchmarkApplication application;
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        application.close();
+    }
+}
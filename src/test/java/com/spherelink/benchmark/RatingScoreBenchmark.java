@@ -0,0 +1,121 @@
+package com.spherelink.benchmark;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.spherelink.service.RatingAggregates;
+
+/**
+ * Rating reads at 100k public views, a tenth of them rated: the first most_rated page ordered by
+ * the Bayesian score against the average it used to sort by, each on its own partial index, and
+ * the star histogram read from the view row against aggregating the view's ratings per request.
+ * All variants are plain JDBC, so only the database work differs.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RatingScoreBenchmark extends PostgresBenchmark {
+
+    private static final int VIEWS = 100_000;
+    private static final int PAGE_SIZE = 20;
+    private static final int QUERY_VIEWS = 1024;
+
+    // Rated views get between 1 and twice the mean ratings, skewed towards high stars
+    private static final String SEED_RATINGS = "INSERT INTO ratings (rating_id, created_at, stars, user_id, view_id) "
+            + "SELECT gen_random_uuid(), now(), least(5, 1 + floor(random() * 6))::int, gen_random_uuid(), v.view_id "
+            + "FROM (SELECT view_id, 1 + floor(random() * 2 * %d)::int AS n FROM views WHERE random() < 0.1) v "
+            + "CROSS JOIN LATERAL generate_series(1, v.n)";
+
+    // As the schema.sql backfill computes them; rating_score is then filled in by RatingAggregates
+    private static final String AGGREGATE = "UPDATE views v SET rating_count = s.n, rating_sum = s.total, "
+            + "average_rating = s.total::double precision / s.n, stars_1 = s.s1, stars_2 = s.s2, stars_3 = s.s3, "
+            + "stars_4 = s.s4, stars_5 = s.s5 "
+            + "FROM (SELECT view_id, count(*) AS n, sum(stars) AS total, count(*) FILTER (WHERE stars = 1) AS s1, "
+            + "count(*) FILTER (WHERE stars = 2) AS s2, count(*) FILTER (WHERE stars = 3) AS s3, "
+            + "count(*) FILTER (WHERE stars = 4) AS s4, count(*) FILTER (WHERE stars = 5) AS s5 "
+            + "FROM ratings GROUP BY view_id) s WHERE v.view_id = s.view_id";
+
+    // Dropped by schema.sql when the application next starts
+    private static final String AVERAGE_INDEX = "CREATE INDEX IF NOT EXISTS idx_views_public_rated "
+            + "ON views ((COALESCE(average_rating, 0)), view_id) WHERE is_public";
+
+    private static final String PAGE = "SELECT v.view_id FROM views v WHERE v.is_public "
+            + "ORDER BY %s DESC, v.view_id DESC LIMIT " + PAGE_SIZE;
+
+    private static final String SCORE_PAGE = String.format(PAGE, "COALESCE(v.rating_score, 0)");
+
+    private static final String AVERAGE_PAGE = String.format(PAGE, "COALESCE(v.average_rating, 0)");
+
+    private static final String HISTOGRAM_FROM_ROW = "SELECT rating_count, average_rating, stars_1, stars_2, "
+            + "stars_3, stars_4, stars_5 FROM views WHERE view_id = ?";
+
+    private static final String HISTOGRAM_FROM_RATINGS = "SELECT count(*), avg(stars), "
+            + "count(*) FILTER (WHERE stars = 1), count(*) FILTER (WHERE stars = 2), "
+            + "count(*) FILTER (WHERE stars = 3), count(*) FILTER (WHERE stars = 4), "
+            + "count(*) FILTER (WHERE stars = 5) FROM ratings WHERE view_id = ?";
+
+    @Param({ "10", "100" })
+    public int meanRatingsPerRatedView;
+
+    private JdbcTemplate jdbc;
+    private UUID[] ratedViews;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void start() {
+        application = BenchmarkApplication.start();
+        application.seedViews(VIEWS, "0", "0", BenchmarkApplication.RANDOM_USER, "",
+                String.format(SEED_RATINGS, meanRatingsPerRatedView), AGGREGATE, AVERAGE_INDEX);
+        jdbc = application.jdbc();
+        application.bean(RatingAggregates.class).rescore();
+        List<UUID> ids = jdbc.queryForList("SELECT view_id FROM views WHERE rating_count > 0 ORDER BY view_id "
+                + "LIMIT " + QUERY_VIEWS, UUID.class);
+        ratedViews = ids.toArray(new UUID[0]);
+    }
+
+    @Benchmark
+    public List<UUID> mostRatedByScore() {
+        return jdbc.queryForList(SCORE_PAGE, UUID.class);
+    }
+
+    @Benchmark
+    public List<UUID> mostRatedByAverage() {
+        return jdbc.queryForList(AVERAGE_PAGE, UUID.class);
+    }
+
+    @Benchmark
+    public double[] histogramFromRow() {
+        return jdbc.queryForObject(HISTOGRAM_FROM_ROW, (rs, rowNum) -> histogram(rs), nextView());
+    }
+
+    @Benchmark
+    public double[] histogramFromRatings() {
+        return jdbc.queryForObject(HISTOGRAM_FROM_RATINGS, (rs, rowNum) -> histogram(rs), nextView());
+    }
+
+    // Count, average, then one count per star
+    private static double[] histogram(ResultSet rs) throws SQLException {
+        double[] values = new double[7];
+        for (int column = 1; column <= values.length; column++) {
+            values[column - 1] = rs.getDouble(column);
+        }
+        return values;
+    }
+
+    private UUID nextView() {
+        UUID viewId = ratedViews[next];
+        next = (next + 1) % ratedViews.length;
+        return viewId;
+    }
+}
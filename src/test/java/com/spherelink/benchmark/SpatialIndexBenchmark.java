@@ -0,0 +1,112 @@
+package com.spherelink.benchmark;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import com.spherelink.dto.ViewCard;
+import com.spherelink.repository.ViewRepository;
+import com.spherelink.repository.ViewRepositoryCustom;
+import com.spherelink.service.ViewSpatialIndex;
+import com.spherelink.service.ViewSpatialIndex.Hit;
+
+/**
+ * Nearby and nearest feed queries at 1M public views: the GiST earthdistance queries against the
+ * in-memory spatial index. The index variants include fetching the page's cards by id, as
+ * ViewService does, and indexRadiusOnly shows the index lookup alone. Views are spread around
+ * randomly placed cities, so the radii span a handful of views up to a whole city; the nearest
+ * variants ignore radiusKm.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SpatialIndexBenchmark extends PostgresBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+    private static final int QUERY_POINTS = 1024;
+
+    // Views cluster within half a degree of each city
+    private static final String CITIES = "JOIN (SELECT id, random() * 120 - 60 AS lat, random() * 360 - 180 AS lon "
+            + "FROM generate_series(0, %d) id) c ON c.id = g %% %d";
+
+    @Param("1000000")
+    public int points;
+
+    @Param("2000")
+    public int cities;
+
+    @Param({ "2", "10", "50" })
+    public double radiusKm;
+
+    private ViewRepository viewRepository;
+    private ViewSpatialIndex spatialIndex;
+    private double[][] queryPoints;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void start() {
+        application = BenchmarkApplication.start("app.feed.spatial-index.enabled=true");
+        application.seedViews(points, "c.lat + (random() - 0.5) * 0.5", "c.lon + (random() - 0.5) * 0.5",
+                BenchmarkApplication.RANDOM_USER, String.format(CITIES, cities - 1, cities));
+        queryPoints = application.jdbc().query(
+                "SELECT latitude, longitude FROM views ORDER BY view_id LIMIT " + QUERY_POINTS,
+                (rs, rowNum) -> new double[] { rs.getDouble(1), rs.getDouble(2) }).toArray(new double[0][]);
+
+        viewRepository = application.bean(ViewRepository.class);
+        spatialIndex = application.bean(ViewSpatialIndex.class);
+        // The index loaded an empty table at startup
+        spatialIndex.load();
+    }
+
+    @Benchmark
+    public Page<ViewCard> sqlNearbyPage() {
+        double[] point = nextPoint();
+        return viewRepository.findPublicCards(null, ViewRepositoryCustom.NEARBY, point[0], point[1], radiusKm,
+                PageRequest.of(0, PAGE_SIZE));
+    }
+
+    @Benchmark
+    public List<ViewCard> indexNearbyPage() {
+        double[] point = nextPoint();
+        List<Hit> hits = spatialIndex.withinRadius(point[0], point[1], radiusKm);
+        return cardsFor(hits.subList(0, Math.min(PAGE_SIZE, hits.size())));
+    }
+
+    @Benchmark
+    public List<Hit> indexRadiusOnly() {
+        double[] point = nextPoint();
+        return spatialIndex.withinRadius(point[0], point[1], radiusKm);
+    }
+
+    @Benchmark
+    public List<ViewCard> sqlNearest() {
+        double[] point = nextPoint();
+        return viewRepository.findNearestPublicCards(point[0], point[1], PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<ViewCard> indexNearest() {
+        double[] point = nextPoint();
+        return cardsFor(spatialIndex.nearest(point[0], point[1], PAGE_SIZE));
+    }
+
+    private List<ViewCard> cardsFor(List<Hit> hits) {
+        List<UUID> ids = hits.stream().map(Hit::viewId).toList();
+        return viewRepository.findPublicCardsByIds(ids);
+    }
+
+    private double[] nextPoint() {
+        double[] point = queryPoints[next];
+        next = (next + 1) % queryPoints.length;
+        return point;
+    }
+}
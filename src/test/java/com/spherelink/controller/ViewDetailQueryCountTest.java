@@ -0,0 +1,109 @@
+package com.spherelink.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.UUID;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import com.spherelink.PostgresIntegrationTest;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * GET /views/{viewId} must cost the version projection plus one fetch query per level of the
+ * tour, however many panoramas, markers and banners it has. The scheduled jobs use JdbcTemplate,
+ * so Hibernate's statistics count only the request's statements.
+ */
+@AutoConfigureMockMvc
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class ViewDetailQueryCountTest extends PostgresIntegrationTest {
+
+    // findVersionById, then findWithPanoramasById, fetchMarkersByViewId and fetchBannerImagesByViewId
+    private static final long DETAIL_STATEMENTS = 4;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void statistics() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void largeTourLoadsInAsManyStatementsAsASmallOne() throws Exception {
+        UUID small = seedTour(1, 1, 1);
+        UUID large = seedTour(40, 25, 4);
+
+        statistics.clear();
+        mockMvc.perform(get("/spherelink/views/{viewId}", small))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.panoramaImages.length()").value(1));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(DETAIL_STATEMENTS);
+
+        statistics.clear();
+        mockMvc.perform(get("/spherelink/views/{viewId}", large))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.panoramaImages.length()").value(40))
+                .andExpect(jsonPath("$.data.panoramaImages[0].markers.length()").value(25))
+                .andExpect(jsonPath("$.data.panoramaImages[0].markers[0].markerBannerImages.length()").value(4));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(DETAIL_STATEMENTS);
+        assertThat(statistics.getEntityLoadCount()).isEqualTo(1 + 40 + 40 * 25 + 40 * 25 * 4);
+    }
+
+    @Test
+    void notModifiedCostsOnlyTheVersionQuery() throws Exception {
+        UUID viewId = seedTour(10, 10, 2);
+        MvcResult first = mockMvc.perform(get("/spherelink/views/{viewId}", viewId))
+                .andExpect(status().isOk())
+                .andReturn();
+        String etag = first.getResponse().getHeader(HttpHeaders.ETAG);
+
+        statistics.clear();
+        mockMvc.perform(get("/spherelink/views/{viewId}", viewId).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    private UUID seedTour(int panoramas, int markersPerPanorama, int bannersPerMarker) {
+        UUID viewId = UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO views (view_id, view_name, description, creator_name, city_name, "
+                + "creator_profile_image_path, latitude, longitude, thumbnail_image, is_public, date_time, user_id, "
+                + "version) VALUES (?, 'Old town walk', '', 'Creator', 'City', 'Uploads/users_profile_pics/p.jpg', "
+                + "48.2, 16.37, 'Uploads/users_views_pics/t.jpg', true, now(), ?, 0)", viewId, UUID.randomUUID());
+        jdbcTemplate.update("INSERT INTO panorama_images (image_id, image_name, image_path, view_id) "
+                + "SELECT gen_random_uuid(), 'Panorama ' || g, 'Uploads/users_views_pics/' || g || '.jpg', ? "
+                + "FROM generate_series(1, ?) g", viewId, panoramas);
+        jdbcTemplate.update("INSERT INTO markers (marker_id, latitude, longitude, label, selected_action, "
+                + "selected_icon, selected_icon_color, selected_icon_rotation, selected_icon_style, image_id) "
+                + "SELECT gen_random_uuid(), 0.25, 1.5, 'Marker ' || g, 'info', 1, 0, 0, 'pin', p.image_id "
+                + "FROM panorama_images p CROSS JOIN generate_series(1, ?) g WHERE p.view_id = ?",
+                markersPerPanorama, viewId);
+        jdbcTemplate.update("INSERT INTO marker_banner_images (image_id, image_path, marker_id) "
+                + "SELECT gen_random_uuid(), 'Uploads/users_views_pics/b' || g || '.jpg', m.marker_id "
+                + "FROM markers m JOIN panorama_images p ON p.image_id = m.image_id "
+                + "CROSS JOIN generate_series(1, ?) g WHERE p.view_id = ?", bannersPerMarker, viewId);
+        return viewId;
+    }
+}
@@ -0,0 +1,145 @@
+package com.spherelink.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.wait.strategy.Wait;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.spherelink.config.StorageConfig;
+
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+
+/**
+ * Runs the S3 backend against a MinIO container, the same stand-in app.storage.s3.endpoint is
+ * meant for. Each "node" is a separate local directory, so fetch is exercised the way a node that
+ * did not write a file uses it.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class S3StorageBackendTest {
+
+    private static final String ACCESS_KEY = "minioadmin";
+    private static final String SECRET_KEY = "minioadmin";
+    private static final String BUCKET = "spherelink-test";
+
+    @Container
+    private static final GenericContainer<?> minio = new GenericContainer<>("minio/minio:RELEASE.2023-03-24T21-41-23Z")
+            .withCommand("server", "/data")
+            .withEnv("MINIO_ROOT_USER", ACCESS_KEY)
+            .withEnv("MINIO_ROOT_PASSWORD", SECRET_KEY)
+            .withExposedPorts(9000)
+            .waitingFor(Wait.forHttp("/minio/health/live").forPort(9000));
+
+    private static ExecutorService uploadExecutor;
+    private static S3StorageBackend backend;
+
+    @TempDir
+    Path writerNode;
+
+    @TempDir
+    Path readerNode;
+
+    @BeforeAll
+    static void startBackend() {
+        String endpoint = "http://" + minio.getHost() + ":" + minio.getMappedPort(9000);
+        try (S3Client admin = S3Client.builder()
+                .region(Region.US_EAST_1)
+                .endpointOverride(URI.create(endpoint))
+                .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create(ACCESS_KEY, SECRET_KEY)))
+                .forcePathStyle(true)
+                .build()) {
+            admin.createBucket(b -> b.bucket(BUCKET));
+        }
+
+        StorageConfig storageConfig = new StorageConfig();
+        StorageConfig.S3 s3 = storageConfig.getS3();
+        s3.setBucket(BUCKET);
+        s3.setEndpoint(endpoint);
+        s3.setPathStyleAccess(true);
+        s3.setAccessKey(ACCESS_KEY);
+        s3.setSecretKey(SECRET_KEY);
+        // S3's smallest allowed part, so a modest file still goes through the multipart path
+        s3.setMultipartThreshold(DataSize.ofMegabytes(5));
+        s3.setPartSize(DataSize.ofMegabytes(5));
+        uploadExecutor = Executors.newFixedThreadPool(4);
+        backend = new S3StorageBackend(storageConfig, uploadExecutor);
+    }
+
+    @AfterAll
+    static void stopBackend() {
+        backend.close();
+        uploadExecutor.shutdownNow();
+    }
+
+    @Test
+    void smallFileWrittenOnOneNodeIsFetchedOnAnother() throws IOException {
+        Path written = write(writerNode.resolve("thumb.jpg"), 64 * 1024);
+        backend.store("Uploads/users_views_pics/ab/cd/thumb.jpg", written);
+
+        Path fetched = readerNode.resolve("Uploads/users_views_pics/ab/cd/thumb.jpg");
+        assertThat(backend.fetch("Uploads/users_views_pics/ab/cd/thumb.jpg", fetched)).isTrue();
+        assertThat(Files.mismatch(written, fetched)).isEqualTo(-1);
+    }
+
+    @Test
+    void multipartUploadRoundTrips() throws IOException {
+        // Three parts, the last one short
+        Path written = write(writerNode.resolve("pano.jpg"), 12 * 1024 * 1024 + 123);
+        backend.store("Uploads/users_views_pics/pano.jpg", written);
+
+        Path fetched = readerNode.resolve("Uploads/users_views_pics/pano.jpg");
+        assertThat(backend.fetch("Uploads/users_views_pics/pano.jpg", fetched)).isTrue();
+        assertThat(Files.mismatch(written, fetched)).isEqualTo(-1);
+    }
+
+    @Test
+    void fetchOfMissingObjectLeavesNoFile() throws IOException {
+        Path target = readerNode.resolve("Uploads/tiles/missing/manifest.json");
+
+        assertThat(backend.fetch("Uploads/tiles/missing/manifest.json", target)).isFalse();
+        try (var entries = Files.list(target.getParent())) {
+            assertThat(entries).isEmpty();
+        }
+    }
+
+    @Test
+    void removedObjectCannotBeFetched() throws IOException {
+        Path written = write(writerNode.resolve("banner.png"), 1024);
+        backend.store("Uploads/users_views_pics/banner.png", written);
+        backend.remove("Uploads/users_views_pics/banner.png");
+
+        assertThat(backend.fetch("Uploads/users_views_pics/banner.png", readerNode.resolve("banner.png"))).isFalse();
+        // Removing what is already gone is not an error
+        backend.remove("Uploads/users_views_pics/banner.png");
+    }
+
+    @Test
+    void objectUrlsArePresignedForTheBucket() {
+        assertThat(backend.objectUrl("Uploads/users_views_pics/thumb.jpg"))
+                .contains(BUCKET + "/Uploads/users_views_pics/thumb.jpg")
+                .contains("X-Amz-Signature=");
+    }
+
+    private static Path write(Path file, int size) throws IOException {
+        byte[] bytes = new byte[size];
+        new Random(size).nextBytes(bytes);
+        return Files.write(file, bytes);
+    }
+}